@@ -0,0 +1,39 @@
+// hit/stand chart worked out once by StrategySolver for a fresh shoe, so playing perfect
+// strategy in the simulator is an array lookup instead of a recursion per decision
+class BasicStrategy {
+    private final boolean[][][] hit = new boolean[11][22][2]; // [up card][hard total][has ace]
+
+    BasicStrategy(int decks) {
+        StrategySolver solver = new StrategySolver();
+        long fullShoe = Composition.of(decks);
+        for (int up = 1; up <= 10; up++) {
+            long comp = Composition.removeValue(fullShoe, up);
+            for (int hard = 2; hard <= 21; hard++) {
+                hit[up][hard][0] = solver.shouldHit(hard, false, up, comp);
+                hit[up][hard][1] = solver.shouldHit(hard, true, up, comp);
+            }
+        }
+    }
+
+    boolean shouldHit(Hand player, int upCard) {
+        return player.hard <= 21 && hit[Cards.hardValue(upCard)][player.hard][player.aceCount > 0 ? 1 : 0];
+    }
+
+    // prints the chart, H or S for every player total against every dealer up card
+    public static void main(String[] args) {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long start = System.nanoTime();
+        BasicStrategy strategy = new BasicStrategy(decks);
+        System.out.printf("%d decks, solved in %.2f s%n", decks, (System.nanoTime() - start) / 1e9);
+        System.out.println("      2 3 4 5 6 7 8 9 T A");
+        for (int ace = 0; ace < 2; ace++) {
+            for (int hard = ace == 0 ? 4 : 2; hard <= (ace == 0 ? 20 : 10); hard++) {
+                StringBuilder line = new StringBuilder(ace == 0 ? String.format("%4d  ", hard) : String.format("A,%-2d  ", hard - 1));
+                for (int up = 2; up <= 11; up++) {
+                    line.append(strategy.hit[up == 11 ? 1 : up][hard][ace] ? "H " : "S ");
+                }
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.*;
 
 // Create a rounded button class
@@ -30,47 +33,31 @@ class RoundedButton extends JButton {
 }
 
 public class BlackJack {
-    private class Card {
-        String value;
-        String type;
-
-        Card(String value, String type) {
-            this.value = value;
-            this.type = type;
-        }
-
-        public String toString() {
-            return value + "-" + type;
-        }
-
-        public int getValue() {
-            if ("AJQK".contains(value)) {
-                if (value.equals("A")) {
-                    return 11;
-                }
-                return 10;
-            }
-            return Integer.parseInt(value);
-        }
-
-        public boolean isAce() {
-            return value.equals("A");
-        }
-
-        public String getImagePath() {
-            return "./cards/" + toString() + ".png";
-        }
-    }
-
-    private ArrayList<Card> deck;
-    private Random random = new Random();
-    private Card hiddenCard;
-    private ArrayList<Card> dealerHand;
-    private int dealerSum;
-    private int dealerAceCount;
-    private ArrayList<Card> playerHand;
-    private int playerSum;
-    private int playerAceCount;
+    // timed phases, H shows them on the table
+    static final int DRAW_GAME = 0;
+    static final int DEALER_PLAY = 1;
+    static final int PAINT = 2;
+
+    private TableEngine table = new TableEngine(Integer.getInteger("bj.decks", 1),
+            Double.parseDouble(System.getProperty("bj.penetration", "0.75")), new Random());
+    private Hand dealer = table.dealer;
+    private Hand player = table.player;
+    private HandLog handLog = openHandLog(System.getProperty("bj.handlog"));
+    private HighScores scores = HighScores.shared().start();
+    private int sessionHands = 0;
+    private int sessionNet = 0; // hands won less hands lost since the window opened, kept when it closes
+    private StrategySolver solver = new StrategySolver();
+    // the exact solve can take most of a second on a big shoe, it runs here instead of on the EDT
+    private ExecutorService hintThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bj hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile int hintFor = 0; // bumped on every deal and hit, a hint for an older hand is dropped
+    private String hint = "";
+    private PhaseTimings timings = new PhaseTimings("blackjack", "drawGame", "dealerPlay", "paint");
+    private boolean showTimings = PhaseTimings.HUD;
+    private Font hudFont = new Font("Monospaced", Font.PLAIN, 12);
 
     private JFrame frame;
     private JPanel mainPanel, gamePanel, entryPanel, instructionsPanel, buttonPanel;
@@ -80,6 +67,15 @@ public class BlackJack {
     BlackJack() {
         frame = new JFrame("Black Jack");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // runs before EXIT_ON_CLOSE exits, the store's shutdown hook still writes it
+                if (sessionHands > 0) {
+                    scores.submit(HighScores.BLACKJACK, sessionNet);
+                }
+            }
+        });
         frame.setSize(800, 800);
         frame.setLocationRelativeTo(null);
         frame.setResizable(false);
@@ -104,8 +100,8 @@ public class BlackJack {
         cardPanel.setBackground(new Color(30, 60, 40));
         cardPanel.setLayout(new FlowLayout());
 
+        ImageIcon cardImage = new ImageIcon(getClass().getResource("cards/start.png")); // Example image
         for (int i = 1; i <= 3; i++) {
-            ImageIcon cardImage = new ImageIcon(getClass().getResource("./cards/start.png")); // Example image
             JLabel cardLabel = new JLabel(cardImage);
             cardPanel.add(cardLabel);
         }
@@ -175,8 +171,10 @@ public class BlackJack {
         gamePanel = new JPanel() {
             @Override
             public void paintComponent(Graphics g) {
+                long start = System.nanoTime();
                 super.paintComponent(g);
                 drawGame(g);
+                timings.record(PAINT, start);
             }
         };
         gamePanel.setLayout(new BorderLayout());
@@ -201,6 +199,15 @@ public class BlackJack {
         stayButton.addActionListener(e -> dealerPlay());
         restartButton.addActionListener(e -> restartGame());
 
+        gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), "timings");
+        gamePanel.getActionMap().put("timings", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showTimings = !showTimings;
+                gamePanel.repaint();
+            }
+        });
+
         gamePanel.add(buttonPanel, BorderLayout.SOUTH);
         frame.add(gamePanel);
         startGame();
@@ -229,43 +236,29 @@ public class BlackJack {
     }
 
     private void drawGame(Graphics g) {
+        long start = System.nanoTime();
         try {
+            CardAtlas atlas = CardAtlas.get();
+
             // Draw hidden card
-            Image hiddenCardImg = new ImageIcon(getClass().getResource("./cards/BACK.png")).getImage();
-            if (!stayButton.isEnabled()) {
-                hiddenCardImg = new ImageIcon(getClass().getResource(hiddenCard.getImagePath())).getImage();
-            }
-            g.drawImage(hiddenCardImg, 20, 20, 110, 154, null);
+            atlas.draw(g, table.isRoundOver() ? table.hiddenCard() : CardAtlas.BACK, 20, 20);
 
             // Draw dealer's hand cards
-            for (int i = 0; i < dealerHand.size(); i++) {
-                Card card = dealerHand.get(i);
-                Image cardImg = new ImageIcon(getClass().getResource(card.getImagePath())).getImage();
-                g.drawImage(cardImg, 135 + (115 * i), 20, 110, 154, null);
+            for (int i = 1; i < dealer.size(); i++) {
+                atlas.draw(g, dealer.get(i), 135 + (115 * (i - 1)), 20);
             }
 
             // Draw player's hand cards
-            for (int i = 0; i < playerHand.size(); i++) {
-                Card card = playerHand.get(i);
-                Image cardImg = new ImageIcon(getClass().getResource(card.getImagePath())).getImage();
-                g.drawImage(cardImg, 20 + (115 * i), 500, 110, 154, null);
+            for (int i = 0; i < player.size(); i++) {
+                atlas.draw(g, player.get(i), 20 + (115 * i), 500);
             }
 
-            if (!stayButton.isEnabled()) {
-                dealerSum = reduceDealerAce();
-                playerSum = reducePlayerAce();
-                String message = "";
-                if (playerSum > 21) {
-                    message = "You Lose!";
-                } else if (dealerSum > 21) {
-                    message = "You Win!";
-                } else if (playerSum == dealerSum) {
-                    message = "Tie!";
-                } else if (playerSum > dealerSum) {
-                    message = "You Win!";
-                } else {
-                    message = "You Lose!";
-                }
+            if (!table.isRoundOver()) {
+                g.setFont(new Font("Serif", Font.PLAIN, 24));
+                g.setColor(Color.LIGHT_GRAY);
+                g.drawString(hint, 20, 470);
+            } else {
+                String message = BlackJackRules.message(table.outcome());
 
                 g.setFont(new Font("Serif", Font.PLAIN, 30)); // Fancier font
                 g.setColor(Color.WHITE);
@@ -273,104 +266,120 @@ public class BlackJack {
                 restartButton.setVisible(true);
             }
 
+            if (showTimings) {
+                g.setFont(hudFont);
+                g.setColor(Color.LIGHT_GRAY);
+                String[] lines = timings.hudLines();
+                for (int i = 0; i < lines.length; i++) {
+                    g.drawString(lines[i], 20, 320 + i * 14);
+                }
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        timings.record(DRAW_GAME, start);
     }
 
     public void startGame() {
-        buildDeck();
-        shuffleDeck();
         resetGame();
     }
 
     private void resetGame() {
-        dealerHand = new ArrayList<>();
-        dealerSum = 0;
-        dealerAceCount = 0;
-        playerHand = new ArrayList<>();
-        playerSum = 0;
-        playerAceCount = 0;
-
-        hiddenCard = deck.remove(deck.size() - 1);
-        dealerSum += hiddenCard.getValue();
-        dealerAceCount += hiddenCard.isAce() ? 1 : 0;
-        dealerHand.add(deck.remove(deck.size() - 1));
-        for (int i = 0; i < 2; i++) {
-            playerHand.add(deck.remove(deck.size() - 1));
-            playerSum += playerHand.get(i).getValue();
-            playerAceCount += playerHand.get(i).isAce() ? 1 : 0;
-        }
+        table.deal();
 
         hitButton.setEnabled(true);
         stayButton.setEnabled(true);
         restartButton.setVisible(false);
+        updateHint();
         gamePanel.repaint();
     }
 
     private void playerHit() {
-        Card card = deck.remove(deck.size() - 1);
-        playerSum += card.getValue();
-        playerAceCount += card.isAce() ? 1 : 0;
-        playerHand.add(card);
-        if (reducePlayerAce() > 21) {
+        table.hit();
+        if (!table.canHit()) {
             hitButton.setEnabled(false);
         }
+        updateHint();
         gamePanel.repaint();
     }
 
     private void dealerPlay() {
+        long start = System.nanoTime();
         hitButton.setEnabled(false);
         stayButton.setEnabled(false);
-        while (dealerSum < 17) {
-            Card card = deck.remove(deck.size() - 1);
-            dealerSum += card.getValue();
-            dealerAceCount += card.isAce() ? 1 : 0;
-            dealerHand.add(card);
+        table.stand();
+        sessionHands++;
+        sessionNet += table.outcome() - BlackJackRules.TIE;
+        if (handLog != null) {
+            try {
+                handLog.append(table);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
+        timings.record(DEALER_PLAY, start);
         gamePanel.repaint();
     }
 
-    private void restartGame() {
-        resetGame();
-        gamePanel.repaint();
+    // every finished hand goes to the log when -Dbj.handlog=<file> is set
+    private static HandLog openHandLog(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            HandLog log = HandLog.open(Paths.get(path));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+            return log;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
-    public void buildDeck() {
-        deck = new ArrayList<>();
-        String[] values = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
-        String[] types = {"C", "D", "H", "S"};
-
-        for (String type : types) {
-            for (String value : values) {
-                deck.add(new Card(value, type));
-            }
+    // what perfect play does with the cards still unseen, the hidden card is one of them. worked out
+    // on the hint thread from a copy of the hand, the table shows it when it's done
+    private void updateHint() {
+        int handId = ++hintFor;
+        if (BlackJackRules.isBust(player)) {
+            hint = "";
+            return;
         }
+        hint = "Hint: ...";
+        int hard = player.hard;
+        boolean hasAce = player.aceCount > 0;
+        int up = Cards.hardValue(table.upCard());
+        long unseen = table.unseen();
+        hintThread.execute(() -> {
+            if (handId != hintFor) {
+                return; // the player moved on while this was queued
+            }
+            String solved = solver.shouldHit(hard, hasAce, up, unseen) ? "Hint: Hit" : "Hint: Stay";
+            SwingUtilities.invokeLater(() -> {
+                if (handId == hintFor) {
+                    hint = solved;
+                    gamePanel.repaint();
+                }
+            });
+        });
     }
 
-    public void shuffleDeck() {
-        for (int i = 0; i < deck.size(); i++) {
-            int j = random.nextInt(deck.size());
-            Card currCard = deck.get(i);
-            deck.set(i, deck.get(j));
-            deck.set(j, currCard);
-        }
+    private void restartGame() {
+        resetGame();
+        gamePanel.repaint();
     }
 
     public int reducePlayerAce() {
-        while (playerSum > 21 && playerAceCount > 0) {
-            playerSum -= 10;
-            playerAceCount--;
-        }
-        return playerSum;
+        return player.total();
     }
 
     public int reduceDealerAce() {
-        while (dealerSum > 21 && dealerAceCount > 0) {
-            dealerSum -= 10;
-            dealerAceCount--;
-        }
-        return dealerSum;
+        return dealer.total();
     }
 
     public static void main(String[] args) {
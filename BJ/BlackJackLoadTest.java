@@ -0,0 +1,114 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// opens a table per client against a running BlackJackServer, every client plays stand-on-17 and
+// times each action round trip. prints open table count and the action latency percentiles
+// usage: java BlackJackLoadTest [host=localhost] [port=7777] [clients=1000] [hands=100]
+public class BlackJackLoadTest {
+    final String host;
+    final int port;
+    final int hands;
+
+    BlackJackLoadTest(String host, int port, int hands) {
+        this.host = host;
+        this.port = port;
+        this.hands = hands;
+    }
+
+    // returns the round trip time of every action this client sent, in nanoseconds
+    long[] client() throws IOException {
+        long[] latencies = new long[hands * 8];
+        int count = 0;
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            for (int h = 0; h < hands; h++) {
+                latencies = room(latencies, count);
+                String state = send("DEAL", in, out, latencies, count++);
+                while (state.startsWith("PLAY") && playerTotal(state) < BlackJackRules.DEALER_STANDS_ON) {
+                    latencies = room(latencies, count);
+                    state = send("HIT", in, out, latencies, count++);
+                }
+                if (state.startsWith("PLAY")) {
+                    latencies = room(latencies, count);
+                    send("STAND", in, out, latencies, count++);
+                }
+            }
+            out.write("QUIT\n");
+            out.flush();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    // latencies, or a copy twice the size when it has no room for one more
+    static long[] room(long[] latencies, int count) {
+        return count < latencies.length ? latencies : Arrays.copyOf(latencies, count * 2);
+    }
+
+    static String send(String command, BufferedReader in, Writer out, long[] latencies, int index) throws IOException {
+        long start = System.nanoTime();
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        latencies[index] = System.nanoTime() - start;
+        if (reply == null || reply.startsWith("ERR")) {
+            throw new IOException("server replied " + reply + " to " + command);
+        }
+        return reply;
+    }
+
+    static int playerTotal(String state) {
+        int start = state.indexOf(' ') + 1;
+        return Integer.parseInt(state.substring(start, state.indexOf(' ', start)));
+    }
+
+    static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = BlackJackSimulator.arg(args, "host", "localhost");
+        int port = (int) BlackJackSimulator.arg(args, "port", 7777);
+        int clients = (int) BlackJackSimulator.arg(args, "clients", 1000);
+        int hands = (int) BlackJackSimulator.arg(args, "hands", 100);
+
+        BlackJackLoadTest test = new BlackJackLoadTest(host, port, hands);
+        ExecutorService executor = BlackJackServer.sessionExecutor();
+        long start = System.nanoTime();
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(executor.submit(test::client));
+        }
+
+        long[][] perClient = new long[clients][];
+        int total = 0;
+        for (int c = 0; c < clients; c++) {
+            perClient[c] = results.get(c).get();
+            total += perClient[c].length;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        long[] all = new long[total];
+        int at = 0;
+        for (long[] latencies : perClient) {
+            System.arraycopy(latencies, 0, all, at, latencies.length);
+            at += latencies.length;
+        }
+        Arrays.sort(all);
+
+        System.out.printf("tables     %,d clients x %,d hands%n", clients, hands);
+        System.out.printf("actions    %,d in %.2f s, %,.0f/s%n", total, seconds, total / seconds);
+        System.out.printf("latency    p50 %.3f ms  p99 %.3f ms  p999 %.3f ms  max %.3f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6,
+                percentile(all, 0.999) / 1e6, all[all.length - 1] / 1e6);
+    }
+}
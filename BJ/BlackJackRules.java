@@ -0,0 +1,45 @@
+// the table rules, shared by the swing game and the headless simulator so both play the same game
+final class BlackJackRules {
+    static final int LOSE = 0;
+    static final int TIE = 1;
+    static final int WIN = 2;
+
+    static final int DEALER_STANDS_ON = 17;
+
+    private BlackJackRules() {}
+
+    static boolean dealerHits(Hand dealer) {
+        return dealer.total() < DEALER_STANDS_ON;
+    }
+
+    static boolean isBust(Hand hand) {
+        return hand.total() > 21;
+    }
+
+    static int outcome(Hand player, Hand dealer) {
+        int playerSum = player.total();
+        int dealerSum = dealer.total();
+        if (playerSum > 21) {
+            return LOSE;
+        } else if (dealerSum > 21) {
+            return WIN;
+        } else if (playerSum == dealerSum) {
+            return TIE;
+        } else if (playerSum > dealerSum) {
+            return WIN;
+        } else {
+            return LOSE;
+        }
+    }
+
+    static String message(int outcome) {
+        switch (outcome) {
+            case WIN:
+                return "You Win!";
+            case TIE:
+                return "Tie!";
+            default:
+                return "You Lose!";
+        }
+    }
+}
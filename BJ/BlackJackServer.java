@@ -0,0 +1,146 @@
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// hosts one TableEngine per connection, each session on its own (virtual when available) thread.
+// line protocol, one reply line per command:
+//   DEAL | HIT | STAND  ->  <PLAY|WIN|LOSE|TIE> <player total> <player cards> <dealer total|?> <dealer cards>
+//   STATS               ->  STATS <open tables> <actions served>
+//   QUIT                ->  closes the connection
+// cards are comma separated like 10-H,A-S and the hidden card shows as ?? until the round is over
+// usage: java BlackJackServer [port=7777] [decks=6] [penetration=75]
+public class BlackJackServer {
+    static final String[] OUTCOMES = {"LOSE", "TIE", "WIN"}; // indexed by BlackJackRules.LOSE/TIE/WIN
+
+    final int decks;
+    final double penetration;
+    final SplittableRandom seeds = new SplittableRandom();
+    final AtomicInteger openTables = new AtomicInteger();
+    final AtomicLong actions = new AtomicLong();
+
+    BlackJackServer(int decks, double penetration) {
+        this.decks = decks;
+        this.penetration = penetration;
+    }
+
+    // virtual threads make a blocked session nearly free, older jvms fall back to a thread per session
+    static ExecutorService sessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    void serve(int port) throws IOException {
+        ExecutorService sessions = sessionExecutor();
+        try (ServerSocket server = new ServerSocket(port, 4096)) {
+            System.out.println("blackjack server on port " + server.getLocalPort());
+            while (true) {
+                Socket socket = server.accept();
+                // only the accept thread splits the seed source, so it needs no locking
+                SplittableRandom random = seeds.split();
+                sessions.execute(() -> session(socket, random));
+            }
+        } finally {
+            sessions.shutdownNow();
+        }
+    }
+
+    void session(Socket socket, SplittableRandom random) {
+        TableEngine table = new TableEngine(decks, penetration, random);
+        openTables.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            StringBuilder reply = new StringBuilder(128);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.trim().toUpperCase();
+                if (command.equals("QUIT")) {
+                    break;
+                }
+                reply.setLength(0);
+                handle(table, command, reply);
+                reply.append('\n');
+                out.append(reply);
+                out.flush();
+                actions.incrementAndGet();
+            }
+        } catch (IOException e) {
+            // the client went away, nothing to clean up beyond the table count
+        } finally {
+            openTables.decrementAndGet();
+        }
+    }
+
+    void handle(TableEngine table, String command, StringBuilder reply) {
+        switch (command) {
+            case "DEAL":
+                table.deal();
+                break;
+            case "HIT":
+                if (!table.hit()) {
+                    reply.append("ERR cannot hit now");
+                    return;
+                }
+                break;
+            case "STAND":
+                if (table.isRoundOver()) {
+                    reply.append("ERR no hand in play");
+                    return;
+                }
+                table.stand();
+                break;
+            case "STATS":
+                reply.append("STATS ").append(openTables.get()).append(' ').append(actions.get());
+                return;
+            default:
+                reply.append("ERR unknown command ").append(command);
+                return;
+        }
+        appendState(table, reply);
+    }
+
+    static void appendState(TableEngine table, StringBuilder reply) {
+        if (table.isRoundOver()) {
+            reply.append(OUTCOMES[table.outcome()]);
+        } else {
+            reply.append("PLAY");
+        }
+        reply.append(' ').append(table.player.total()).append(' ');
+        appendCards(table.player, 0, reply);
+        reply.append(' ');
+        if (table.isRoundOver()) {
+            reply.append(table.dealer.total()).append(' ');
+            appendCards(table.dealer, 0, reply);
+        } else {
+            reply.append("? ??,");
+            appendCards(table.dealer, 1, reply);
+        }
+    }
+
+    static void appendCards(Hand hand, int from, StringBuilder reply) {
+        for (int i = from; i < hand.size(); i++) {
+            if (i > from) {
+                reply.append(',');
+            }
+            int card = hand.get(i);
+            reply.append(Cards.RANKS[Cards.rank(card)]).append('-').append(Cards.TYPES[Cards.type(card)]);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = (int) BlackJackSimulator.arg(args, "port", 7777);
+        int decks = (int) BlackJackSimulator.arg(args, "decks", 6);
+        double penetration = BlackJackSimulator.arg(args, "penetration", 75) / 100.0;
+        new BlackJackServer(decks, penetration).serve(port);
+    }
+}
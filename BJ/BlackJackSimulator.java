@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+// headless monte carlo runner for the rules in BlackJackRules, no swing anywhere in here
+// usage: java BlackJackSimulator [hands=100000000] [strategy=standOn|perfect] [standOn=17] [decks=6]
+//                                [penetration=75] [threads=<cores>] [seed=<random>] [log=<hand log file>]
+public class BlackJackSimulator {
+    static final long HANDS_PER_CHUNK = 1 << 16;
+
+    final int standOn;
+    final BasicStrategy strategy; // null to just hit below standOn
+    final int decks;
+    final double penetration;
+    HandLog log; // every hand is appended here when set
+
+    BlackJackSimulator(int standOn, BasicStrategy strategy, int decks, double penetration) {
+        this.standOn = standOn;
+        this.strategy = strategy;
+        this.decks = decks;
+        this.penetration = penetration;
+    }
+
+    boolean playerHits(Hand player, int upCard) {
+        if (strategy != null) {
+            return strategy.shouldHit(player, upCard);
+        }
+        return player.total() < standOn;
+    }
+
+    static class Tally {
+        long wins;
+        long losses;
+        long ties;
+
+        long hands() {
+            return wins + losses + ties;
+        }
+
+        Tally add(Tally other) {
+            wins += other.wins;
+            losses += other.losses;
+            ties += other.ties;
+            return this;
+        }
+    }
+
+    // plays the hands in a chunk on one thread with its own rng and table, so nothing is shared
+    Tally playChunk(long seed, long hands) {
+        TableEngine table = new TableEngine(decks, penetration, new SplittableRandom(seed));
+        Tally tally = new Tally();
+
+        for (long h = 0; h < hands; h++) {
+            table.deal();
+            while (table.canHit() && playerHits(table.player, table.upCard())) {
+                table.hit();
+            }
+            table.stand();
+            if (log != null) {
+                try {
+                    log.append(table);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            switch (table.outcome()) {
+                case BlackJackRules.WIN:
+                    tally.wins++;
+                    break;
+                case BlackJackRules.TIE:
+                    tally.ties++;
+                    break;
+                default:
+                    tally.losses++;
+            }
+        }
+        return tally;
+    }
+
+    Tally run(long hands, long seed, int threads) throws Exception {
+        long chunks = (hands + HANDS_PER_CHUNK - 1) / HANDS_PER_CHUNK;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(c -> playChunk(seed + c * 0x9E3779B97F4A7C15L,
+                            Math.min(HANDS_PER_CHUNK, hands - c * HANDS_PER_CHUNK)))
+                    .reduce(Tally::add))
+                    .get()
+                    .orElseGet(Tally::new);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static String arg(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return fallback;
+    }
+
+    static long arg(String[] args, String name, long fallback) {
+        return Long.parseLong(arg(args, name, String.valueOf(fallback)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        long hands = arg(args, "hands", 100_000_000L);
+        int standOn = (int) arg(args, "standOn", BlackJackRules.DEALER_STANDS_ON);
+        int decks = (int) arg(args, "decks", 6);
+        double penetration = arg(args, "penetration", 75) / 100.0;
+        boolean perfect = arg(args, "strategy", "standOn").equals("perfect");
+        int threads = (int) arg(args, "threads", Runtime.getRuntime().availableProcessors());
+        long seed = arg(args, "seed", System.nanoTime());
+
+        BlackJackSimulator simulator = new BlackJackSimulator(standOn,
+                perfect ? new BasicStrategy(decks) : null, decks, penetration);
+        String logPath = arg(args, "log", null);
+        if (logPath != null) {
+            simulator.log = HandLog.open(Paths.get(logPath));
+        }
+        long start = System.nanoTime();
+        Tally tally = simulator.run(hands, seed, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (simulator.log != null) {
+            simulator.log.close();
+        }
+
+        double total = tally.hands();
+        System.out.printf("hands      %,d on %d threads (seed %d)%n", tally.hands(), threads, seed);
+        System.out.printf("shoe       %d decks, %.0f%% penetration%n", decks, penetration * 100);
+        System.out.printf("strategy   %s%n", perfect ? "perfect" : "stand on " + standOn);
+        System.out.printf("win        %.4f%%%n", 100 * tally.wins / total);
+        System.out.printf("lose       %.4f%%%n", 100 * tally.losses / total);
+        System.out.printf("push       %.4f%%%n", 100 * tally.ties / total);
+        System.out.printf("house edge %.4f%%%n", 100 * (tally.losses - tally.wins) / total);
+        System.out.printf("speed      %,.0f hands/s (%.2f s)%n", tally.hands() / seconds, seconds);
+    }
+}
@@ -0,0 +1,69 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+// every card face plus the back, decoded once and pre-scaled into one screen compatible image,
+// drawing a card is then just a blit out of its cell
+class CardAtlas {
+    static final int CARD_WIDTH = 110;
+    static final int CARD_HEIGHT = 154;
+    static final int BACK = Cards.DECK_SIZE; // atlas code for BACK.png, after the 52 faces
+
+    private static final int COLUMNS = 13;
+    private static final int CELLS = Cards.DECK_SIZE + 1;
+
+    private static CardAtlas instance;
+
+    private final BufferedImage atlas;
+
+    private CardAtlas(BufferedImage atlas) {
+        this.atlas = atlas;
+    }
+
+    // loaded on first use, the EDT is the only caller
+    static CardAtlas get() {
+        if (instance == null) {
+            instance = new CardAtlas(load());
+        }
+        return instance;
+    }
+
+    void draw(Graphics g, int code, int x, int y) {
+        int sx = (code % COLUMNS) * CARD_WIDTH;
+        int sy = (code / COLUMNS) * CARD_HEIGHT;
+        g.drawImage(atlas, x, y, x + CARD_WIDTH, y + CARD_HEIGHT, sx, sy, sx + CARD_WIDTH, sy + CARD_HEIGHT, null);
+    }
+
+    private static BufferedImage load() {
+        int rows = (CELLS + COLUMNS - 1) / COLUMNS;
+        BufferedImage atlas = createImage(COLUMNS * CARD_WIDTH, rows * CARD_HEIGHT);
+        Graphics2D g = atlas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        try {
+            for (int code = 0; code < CELLS; code++) {
+                String path = code == BACK ? "cards/BACK.png" : Cards.imagePath(code);
+                BufferedImage card = ImageIO.read(CardAtlas.class.getResource(path));
+                int x = (code % COLUMNS) * CARD_WIDTH;
+                int y = (code / COLUMNS) * CARD_HEIGHT;
+                g.drawImage(card, x, y, CARD_WIDTH, CARD_HEIGHT, null);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("could not load card images", e);
+        } finally {
+            g.dispose();
+        }
+        return atlas;
+    }
+
+    // same pixel layout as the screen so blits need no conversion
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
@@ -0,0 +1,46 @@
+// cards are plain ints, rank * 4 + suit, so dealing and scoring never touch a String or an object
+final class Cards {
+    static final int DECK_SIZE = 52;
+
+    static final String[] RANKS = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+    static final String[] TYPES = {"C", "D", "H", "S"};
+
+    // hard value of each card code, aces count 1 here and Hand adds the soft 10 when it fits
+    private static final byte[] HARD_VALUE = new byte[DECK_SIZE];
+
+    static {
+        for (int card = 0; card < DECK_SIZE; card++) {
+            HARD_VALUE[card] = (byte) Math.min(rank(card) + 1, 10);
+        }
+    }
+
+    private Cards() {}
+
+    static int of(int rank, int type) {
+        return rank * 4 + type;
+    }
+
+    static int rank(int card) {
+        return card >> 2;
+    }
+
+    static int type(int card) {
+        return card & 3;
+    }
+
+    static int hardValue(int card) {
+        return HARD_VALUE[card];
+    }
+
+    static boolean isAce(int card) {
+        return card < 4;
+    }
+
+    static String toString(int card) {
+        return RANKS[rank(card)] + "-" + TYPES[type(card)];
+    }
+
+    static String imagePath(int card) {
+        return "cards/" + toString(card) + ".png";
+    }
+}
@@ -0,0 +1,53 @@
+// the cards left in a shoe packed into one long, a count per hard value so it can key a cache:
+// values 1-9 get 6 bits each (32 of them in 8 decks) and the ten values get the top 8 bits (128)
+final class Composition {
+    private static final int[] SHIFT = {0, 0, 6, 12, 18, 24, 30, 36, 42, 48, 54};
+    private static final long[] MASK = {0, 63, 63, 63, 63, 63, 63, 63, 63, 63, 255};
+
+    private Composition() {}
+
+    static long of(int decks) {
+        long comp = 0;
+        for (int value = 1; value <= 10; value++) {
+            long perDeck = value == 10 ? 16 : 4;
+            comp |= (perDeck * decks) << SHIFT[value];
+        }
+        return comp;
+    }
+
+    static long of(Shoe shoe) {
+        long comp = 0;
+        for (int i = shoe.cards.length - shoe.remaining(); i < shoe.cards.length; i++) {
+            comp = add(comp, shoe.cards[i]);
+        }
+        return comp;
+    }
+
+    static int count(long comp, int value) {
+        return (int) ((comp >>> SHIFT[value]) & MASK[value]);
+    }
+
+    static int size(long comp) {
+        int size = 0;
+        for (int value = 1; value <= 10; value++) {
+            size += count(comp, value);
+        }
+        return size;
+    }
+
+    static long addValue(long comp, int value) {
+        return comp + (1L << SHIFT[value]);
+    }
+
+    static long removeValue(long comp, int value) {
+        return comp - (1L << SHIFT[value]);
+    }
+
+    static long add(long comp, int card) {
+        return addValue(comp, Cards.hardValue(card));
+    }
+
+    static long remove(long comp, int card) {
+        return removeValue(comp, Cards.hardValue(card));
+    }
+}
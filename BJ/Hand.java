@@ -0,0 +1,40 @@
+// one blackjack hand, the hard total (aces as 1) and the ace count are kept as cards come in
+// so the best total is always one add away and nothing is allocated after construction
+class Hand {
+    // an eight deck shoe has 32 aces, 21 of them is still not bust so one more card makes 22
+    static final int MAX_CARDS = 22;
+
+    final int[] cards = new int[MAX_CARDS];
+    int count;
+    int hard;
+    int aceCount;
+
+    void clear() {
+        count = 0;
+        hard = 0;
+        aceCount = 0;
+    }
+
+    void add(int card) {
+        cards[count++] = card;
+        hard += Cards.hardValue(card);
+        aceCount += Cards.isAce(card) ? 1 : 0;
+    }
+
+    int get(int i) {
+        return cards[i];
+    }
+
+    int size() {
+        return count;
+    }
+
+    // only one ace can ever be 11 without busting
+    boolean isSoft() {
+        return aceCount > 0 && hard + 10 <= 21;
+    }
+
+    int total() {
+        return isSoft() ? hard + 10 : hard;
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// append-only binary log of finished hands, written straight into memory mapped segments.
+// the file is a 64 byte header followed by fixed 64 byte records, so record i always sits at
+// HEADER_BYTES + i * RECORD_BYTES and HandLogReader can read it in place.
+//
+// header: magic (8) version (4) record size (4) record count (8)
+// record: shoe seed (8) outcome+1 (1) player cards (1) dealer cards (1) actions (1)
+//         action bits, 1 = hit (4) player cards (22) dealer cards (22) shoe position (2) decks (1)
+//         unused (1)
+//
+// appends from several threads are fine, each one claims its own slot first
+class HandLog implements Closeable {
+    static final long MAGIC = 0x424A48414E445331L; // "BJHANDS1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 64;
+    static final int SEGMENT_RECORDS = 1 << 20; // 64MB per mapping
+    static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+
+    static final int SEED = 0;
+    static final int OUTCOME = 8;
+    static final int PLAYER_COUNT = 9;
+    static final int DEALER_COUNT = 10;
+    static final int ACTION_COUNT = 11;
+    static final int ACTIONS = 12;
+    static final int PLAYER_CARDS = 16;
+    static final int DEALER_CARDS = 38;
+    static final int SHOE_POSITION = 60;
+    static final int DECKS = 62;
+    static final int MAX_CARDS = 22;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final AtomicLong count;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    private HandLog(FileChannel channel, MappedByteBuffer header, long count) {
+        this.channel = channel;
+        this.header = header;
+        this.count = new AtomicLong(count);
+    }
+
+    // opens the log for appending, creating it if needed
+    static HandLog open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        long count = 0;
+        if (header.getLong(0) == MAGIC) {
+            if (header.getInt(8) != VERSION || header.getInt(12) != RECORD_BYTES) {
+                channel.close();
+                throw new IOException("unsupported hand log format in " + path);
+            }
+            count = header.getLong(16);
+        } else {
+            header.putLong(0, MAGIC);
+            header.putInt(8, VERSION);
+            header.putInt(12, RECORD_BYTES);
+            header.putLong(16, 0);
+        }
+        return new HandLog(channel, header, count);
+    }
+
+    // records the round that just finished on the table
+    void append(TableEngine table) throws IOException {
+        long index = count.getAndIncrement();
+        MappedByteBuffer segment = segment(index / SEGMENT_RECORDS);
+        int at = (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+
+        segment.putLong(at + SEED, table.handSeed);
+        segment.put(at + PLAYER_COUNT, (byte) Math.min(table.player.size(), MAX_CARDS));
+        segment.put(at + DEALER_COUNT, (byte) Math.min(table.dealer.size(), MAX_CARDS));
+        segment.put(at + ACTION_COUNT, (byte) table.actionCount);
+        segment.putInt(at + ACTIONS, table.actions);
+        for (int i = 0; i < table.player.size() && i < MAX_CARDS; i++) {
+            segment.put(at + PLAYER_CARDS + i, (byte) table.player.get(i));
+        }
+        for (int i = 0; i < table.dealer.size() && i < MAX_CARDS; i++) {
+            segment.put(at + DEALER_CARDS + i, (byte) table.dealer.get(i));
+        }
+        segment.putShort(at + SHOE_POSITION, (short) table.handStart);
+        segment.put(at + DECKS, (byte) (table.shoe.cards.length / Cards.DECK_SIZE));
+        // outcome goes last, a zero outcome marks a slot that was claimed but never finished
+        segment.put(at + OUTCOME, (byte) (table.outcome() + 1));
+    }
+
+    private MappedByteBuffer segment(long i) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (i < mapped.length) {
+            return mapped[(int) i];
+        }
+        return mapSegment((int) i);
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int i) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (i >= mapped.length) {
+            MappedByteBuffer[] grown = Arrays.copyOf(mapped, i + 1);
+            for (int s = mapped.length; s <= i; s++) {
+                grown[s] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + s * SEGMENT_BYTES, SEGMENT_BYTES);
+                grown[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            segments = grown;
+            writeCount();
+            mapped = grown;
+        }
+        return mapped[i];
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    private synchronized void writeCount() {
+        header.putLong(16, count.get());
+    }
+
+    // pushes everything appended so far to disk
+    void flush() {
+        writeCount();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
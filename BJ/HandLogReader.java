@@ -0,0 +1,190 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+// reads a HandLog in place through read-only mappings, no record is ever copied into an object
+// usage: java HandLogReader <log> [replay=<index>]
+public class HandLogReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+
+    private HandLogReader(FileChannel channel, MappedByteBuffer[] segments, long count) {
+        this.channel = channel;
+        this.segments = segments;
+        this.count = count;
+    }
+
+    static HandLogReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HandLog.HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getLong(0) != HandLog.MAGIC || header.getInt(12) != HandLog.RECORD_BYTES) {
+            channel.close();
+            throw new IOException(path + " is not a hand log");
+        }
+        // the header count can lag a crashed writer, never read past what is really in the file
+        long inFile = (channel.size() - HandLog.HEADER_BYTES) / HandLog.RECORD_BYTES;
+        long count = Math.min(header.getLong(16), inFile);
+
+        int segmentCount = (int) ((count + HandLog.SEGMENT_RECORDS - 1) / HandLog.SEGMENT_RECORDS);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            long records = Math.min(HandLog.SEGMENT_RECORDS, count - (long) s * HandLog.SEGMENT_RECORDS);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HandLog.HEADER_BYTES + s * HandLog.SEGMENT_BYTES, records * HandLog.RECORD_BYTES);
+            segments[s].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new HandLogReader(channel, segments, count);
+    }
+
+    long count() {
+        return count;
+    }
+
+    private MappedByteBuffer segment(long i) {
+        return segments[(int) (i / HandLog.SEGMENT_RECORDS)];
+    }
+
+    private static int offset(long i) {
+        return (int) (i % HandLog.SEGMENT_RECORDS) * HandLog.RECORD_BYTES;
+    }
+
+    long seed(long i) {
+        return segment(i).getLong(offset(i) + HandLog.SEED);
+    }
+
+    // BlackJackRules.LOSE/TIE/WIN, or -1 for a slot a writer claimed but never filled
+    int outcome(long i) {
+        return segment(i).get(offset(i) + HandLog.OUTCOME) - 1;
+    }
+
+    int playerCount(long i) {
+        return segment(i).get(offset(i) + HandLog.PLAYER_COUNT);
+    }
+
+    int dealerCount(long i) {
+        return segment(i).get(offset(i) + HandLog.DEALER_COUNT);
+    }
+
+    int playerCard(long i, int card) {
+        return segment(i).get(offset(i) + HandLog.PLAYER_CARDS + card);
+    }
+
+    int dealerCard(long i, int card) {
+        return segment(i).get(offset(i) + HandLog.DEALER_CARDS + card);
+    }
+
+    int actionCount(long i) {
+        return segment(i).get(offset(i) + HandLog.ACTION_COUNT);
+    }
+
+    boolean isHit(long i, int action) {
+        return (segment(i).getInt(offset(i) + HandLog.ACTIONS) & (1 << action)) != 0;
+    }
+
+    int shoePosition(long i) {
+        return segment(i).getShort(offset(i) + HandLog.SHOE_POSITION);
+    }
+
+    int decks(long i) {
+        return segment(i).get(offset(i) + HandLog.DECKS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // deals the recorded hand again from its seed and checks it against the log
+    boolean replay(long i) {
+        Shoe shoe = new Shoe(decks(i), 0.75, new SplittableRandom()); // the cut card doesn't matter here
+        shoe.shuffle(seed(i));
+        int position = shoePosition(i);
+        for (int card = 0; card < position; card++) {
+            shoe.draw();
+        }
+        Hand dealer = new Hand();
+        Hand player = new Hand();
+        dealer.add(shoe.draw());
+        dealer.add(shoe.draw());
+        player.add(shoe.draw());
+        player.add(shoe.draw());
+        for (int action = 0; action < actionCount(i) && isHit(i, action); action++) {
+            player.add(shoe.draw());
+        }
+        if (!BlackJackRules.isBust(player)) {
+            while (BlackJackRules.dealerHits(dealer)) {
+                dealer.add(shoe.draw());
+            }
+        }
+        if (player.size() != playerCount(i) || dealer.size() != dealerCount(i)) {
+            return false;
+        }
+        for (int card = 0; card < player.size(); card++) {
+            if (player.get(card) != playerCard(i, card)) {
+                return false;
+            }
+        }
+        for (int card = 0; card < dealer.size(); card++) {
+            if (dealer.get(card) != dealerCard(i, card)) {
+                return false;
+            }
+        }
+        return BlackJackRules.outcome(player, dealer) == outcome(i);
+    }
+
+    static String cards(HandLogReader log, long i, boolean dealer) {
+        StringBuilder cards = new StringBuilder();
+        int count = dealer ? log.dealerCount(i) : log.playerCount(i);
+        for (int card = 0; card < count; card++) {
+            cards.append(card > 0 ? "," : "").append(Cards.toString(dealer ? log.dealerCard(i, card) : log.playerCard(i, card)));
+        }
+        return cards.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: java HandLogReader <log> [replay=<index>]");
+            return;
+        }
+        try (HandLogReader log = open(Paths.get(args[0]))) {
+            long replay = BlackJackSimulator.arg(args, "replay", -1);
+            if (replay >= 0) {
+                String[] outcomes = {"unfinished", "lose", "tie", "win"};
+                System.out.printf("hand %d  seed %d  shoe position %d%n", replay, log.seed(replay), log.shoePosition(replay));
+                System.out.printf("player %s%ndealer %s%noutcome %s%n", cards(log, replay, false),
+                        cards(log, replay, true), outcomes[log.outcome(replay) + 1]);
+                System.out.println("replays " + (log.replay(replay) ? "identically" : "differently")
+                        + " from a " + log.decks(replay) + " deck shoe");
+                return;
+            }
+
+            long start = System.nanoTime();
+            long[] outcomes = new long[4];
+            long hits = 0;
+            long cards = 0;
+            for (long i = 0; i < log.count(); i++) {
+                outcomes[log.outcome(i) + 1]++;
+                cards += log.playerCount(i) + log.dealerCount(i);
+                for (int action = 0; action < log.actionCount(i); action++) {
+                    hits += log.isHit(i, action) ? 1 : 0;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double hands = Math.max(1, log.count() - outcomes[0]);
+            System.out.printf("records    %,d (%,d unfinished)%n", log.count(), outcomes[0]);
+            System.out.printf("win        %.4f%%%n", 100 * outcomes[BlackJackRules.WIN + 1] / hands);
+            System.out.printf("lose       %.4f%%%n", 100 * outcomes[BlackJackRules.LOSE + 1] / hands);
+            System.out.printf("push       %.4f%%%n", 100 * outcomes[BlackJackRules.TIE + 1] / hands);
+            System.out.printf("hits/hand  %.3f  cards/hand %.3f%n", hits / hands, cards / hands);
+            System.out.printf("scan       %,.0f records/s%n", log.count() / seconds);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+// 1-8 decks dealt off the top with a pointer, reshuffled between hands once the cut card comes out
+class Shoe {
+    static final int MAX_DECKS = 8;
+
+    final int[] cards;
+    private final int cutCard;
+    private final int handReserve; // the most cards one hand can use, a hand never starts with fewer left
+    private final RandomGenerator random;
+    private long seed;
+    private int next;
+
+    // penetration is the part of the shoe dealt before the cut card, 0.75 deals three quarters
+    Shoe(int decks, double penetration, RandomGenerator random) {
+        if (decks < 1 || decks > MAX_DECKS) {
+            throw new IllegalArgumentException("decks must be 1-" + MAX_DECKS + ": " + decks);
+        }
+        if (!(penetration > 0 && penetration < 1)) {
+            throw new IllegalArgumentException("penetration must be in (0, 1): " + penetration);
+        }
+        this.cards = new int[decks * Cards.DECK_SIZE];
+        this.cutCard = (int) (cards.length * penetration);
+        this.handReserve = Math.max(smallestCards(decks, 21 + 16 + 10), smallestCards(decks, 21 + 10) + 2);
+        this.random = random;
+        shuffle();
+    }
+
+    // how many of the shoe's lowest cards fit in points. the dealer only draws while the player is on
+    // 21 or less, and stops on the card after 16, so a hand is at most 21 + 16 + 10 points of cards.
+    // a bust player is at most 21 + 10 and the dealer keeps two
+    private static int smallestCards(int decks, int points) {
+        int count = 0;
+        for (int value = 1; value <= 10; value++) {
+            for (int i = 0; i < (value == 10 ? 16 : 4) * decks; i++) {
+                if (points < value) {
+                    return count;
+                }
+                points -= value;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // fisher-yates, every order of the shoe is equally likely. each shuffle starts from a sorted shoe
+    // and its own seed, so the seed alone is enough to deal the shoe again
+    void shuffle() {
+        seed = random.nextLong();
+        shuffle(seed);
+    }
+
+    void shuffle(long seed) {
+        this.seed = seed;
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = i % Cards.DECK_SIZE;
+        }
+        SplittableRandom order = new SplittableRandom(seed);
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = order.nextInt(i + 1);
+            int currCard = cards[i];
+            cards[i] = cards[j];
+            cards[j] = currCard;
+        }
+        next = 0;
+    }
+
+    // checked before each hand, never during one: the cut card is out, or what's left might not
+    // finish a hand. a hand is always dealt from one shuffle, which the hand log relies on
+    boolean needsShuffle() {
+        return next >= cutCard || remaining() < handReserve;
+    }
+
+    int draw() {
+        if (next == cards.length) {
+            throw new IllegalStateException("the shoe ran out in the middle of a hand");
+        }
+        return cards[next++];
+    }
+
+    long seed() {
+        return seed;
+    }
+
+    // how many cards have been dealt since the last shuffle
+    int position() {
+        return next;
+    }
+
+    int remaining() {
+        return cards.length - next;
+    }
+}
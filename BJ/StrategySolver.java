@@ -0,0 +1,171 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// exact dealer odds and hit/stand values for whatever is left in the shoe, using the same rules
+// as BlackJackRules (dealer stands on any 17, a bust player loses). every result is memoized by
+// the packed Composition so repeated decisions on the same shoe state are a lookup
+class StrategySolver {
+    static final int BUST = 22; // index of the bust chance in a dealer distribution
+
+    // the caches are dropped once they take about this much heap, -Dbj.solverCacheMB=<n>, a long
+    // simulation would grow them forever. one decision on a six deck shoe fills up to about 12 MB,
+    // the whole six deck BasicStrategy chart fits in the default
+    static final long MAX_CACHED_BYTES = Long.getLong("bj.solverCacheMB", 128) << 20;
+    // roughly what one entry costs: map node, Long key and the value
+    static final int DEALER_ENTRY_BYTES = 32 + 16 + 16 + (BUST + 1) * 8;
+    static final int HIT_ENTRY_BYTES = 32 + 16 + 16;
+
+    // [hard total][has ace] -> composition -> chance of each final dealer total, 0-21 and BUST
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Map<Long, double[]>[][] dealerCache = new Map[17][2];
+    // [up card][hard total][has ace] -> composition -> ev of hitting
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Map<Long, Double>[][][] hitCache = new Map[11][22][2];
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    // the distribution of a dealer who is already done, one per final total
+    private static final double[][] FINAL = new double[BUST + 1][BUST + 1];
+
+    static {
+        for (int total = 0; total <= BUST; total++) {
+            FINAL[total][total] = 1;
+        }
+    }
+
+    StrategySolver() {
+        for (int hard = 0; hard < 22; hard++) {
+            for (int ace = 0; ace < 2; ace++) {
+                if (hard < 17) {
+                    dealerCache[hard][ace] = new ConcurrentHashMap<>();
+                }
+                for (int up = 1; up <= 10; up++) {
+                    hitCache[up][hard][ace] = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    static int total(int hard, boolean hasAce) {
+        return hasAce && hard + 10 <= 21 ? hard + 10 : hard;
+    }
+
+    // up is the dealer's up card value (1 for an ace), comp is everything the player can't see,
+    // including the dealer's hidden card
+    double[] dealerOutcomes(int up, long comp) {
+        return dealer(up, up == 1, comp);
+    }
+
+    private double[] dealer(int hard, boolean hasAce, long comp) {
+        int total = total(hard, hasAce);
+        int size = Composition.size(comp);
+        if (total > 21) {
+            return FINAL[BUST];
+        } else if (total >= BlackJackRules.DEALER_STANDS_ON || size == 0) {
+            return FINAL[total];
+        }
+
+        Map<Long, double[]> cache = dealerCache[hard][hasAce ? 1 : 0];
+        double[] outcomes = cache.get(comp);
+        if (outcomes == null) {
+            outcomes = new double[BUST + 1];
+            for (int value = 1; value <= 10; value++) {
+                int count = Composition.count(comp, value);
+                if (count == 0) {
+                    continue;
+                }
+                double p = (double) count / size;
+                double[] next = dealer(hard + value, hasAce || value == 1, Composition.removeValue(comp, value));
+                for (int i = 0; i <= BUST; i++) {
+                    outcomes[i] += p * next[i];
+                }
+            }
+            cache.put(comp, outcomes);
+            cached(DEALER_ENTRY_BYTES);
+        }
+        return outcomes;
+    }
+
+    double standEv(int total, int up, long comp) {
+        if (total > 21) {
+            return -1;
+        }
+        double[] dealer = dealerOutcomes(up, comp);
+        double ev = dealer[BUST];
+        for (int d = 0; d <= 21; d++) {
+            if (d < total) {
+                ev += dealer[d];
+            } else if (d > total) {
+                ev -= dealer[d];
+            }
+        }
+        return ev;
+    }
+
+    // ev of taking one card and then playing on perfectly
+    double hitEv(int hard, boolean hasAce, int up, long comp) {
+        Map<Long, Double> cache = hitCache[up][hard][hasAce ? 1 : 0];
+        Double cached = cache.get(comp);
+        if (cached != null) {
+            return cached;
+        }
+
+        double ev = 0;
+        int size = Composition.size(comp);
+        for (int value = 1; value <= 10; value++) {
+            int count = Composition.count(comp, value);
+            if (count == 0) {
+                continue;
+            }
+            double p = (double) count / size;
+            ev += p * bestEv(hard + value, hasAce || value == 1, up, Composition.removeValue(comp, value));
+        }
+        cache.put(comp, ev);
+        cached(HIT_ENTRY_BYTES);
+        return ev;
+    }
+
+    double bestEv(int hard, boolean hasAce, int up, long comp) {
+        if (hard > 21) {
+            return -1;
+        }
+        double stand = standEv(total(hard, hasAce), up, comp);
+        if (hard == 21 || Composition.size(comp) == 0) {
+            return stand;
+        }
+        return Math.max(stand, hitEv(hard, hasAce, up, comp));
+    }
+
+    boolean shouldHit(int hard, boolean hasAce, int up, long comp) {
+        if (hard >= 21 || Composition.size(comp) == 0) {
+            return false;
+        }
+        return hitEv(hard, hasAce, up, comp) > standEv(total(hard, hasAce), up, comp);
+    }
+
+    boolean shouldHit(Hand player, int upCard, long comp) {
+        return shouldHit(player.hard, player.aceCount > 0, Cards.hardValue(upCard), comp);
+    }
+
+    // counts a new entry and drops everything once the caches are over budget. what's being solved
+    // right now has its values already, it only loses the memo
+    private void cached(int bytes) {
+        if (cachedBytes.addAndGet(bytes) <= MAX_CACHED_BYTES) {
+            return;
+        }
+        cachedBytes.set(0);
+        for (Map<Long, double[]>[] byAce : dealerCache) {
+            for (Map<Long, double[]> cache : byAce) {
+                cache.clear();
+            }
+        }
+        for (Map<Long, Double>[][] byHard : hitCache) {
+            for (Map<Long, Double>[] byAce : byHard) {
+                if (byAce[0] != null) {
+                    byAce[0].clear();
+                    byAce[1].clear();
+                }
+            }
+        }
+    }
+}
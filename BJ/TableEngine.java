@@ -0,0 +1,91 @@
+import java.util.random.RandomGenerator;
+
+// one blackjack table with no ui attached: the shoe, both hands and whether the player is done.
+// the swing game, the simulator and the server sessions all drive one of these
+class TableEngine {
+    final Shoe shoe;
+    final Hand dealer = new Hand(); // card 0 is the hidden card, card 1 the up card
+    final Hand player = new Hand();
+    private boolean roundOver = true;
+
+    // what the player did this round for the hand log, bit i set means action i was a hit
+    int actions;
+    int actionCount;
+    long handSeed; // seed of the shoe the hand came from
+    int handStart; // shoe position of the hand's first card
+
+    TableEngine(int decks, double penetration, RandomGenerator random) {
+        this.shoe = new Shoe(decks, penetration, random);
+    }
+
+    void deal() {
+        if (shoe.needsShuffle()) {
+            shoe.shuffle();
+        }
+        handSeed = shoe.seed();
+        handStart = shoe.position();
+        actions = 0;
+        actionCount = 0;
+        dealer.clear();
+        player.clear();
+
+        dealer.add(shoe.draw()); // hidden card
+        dealer.add(shoe.draw());
+        for (int i = 0; i < 2; i++) {
+            player.add(shoe.draw());
+        }
+        roundOver = false;
+    }
+
+    boolean canHit() {
+        return !roundOver && !BlackJackRules.isBust(player);
+    }
+
+    boolean hit() {
+        if (!canHit()) {
+            return false;
+        }
+        player.add(shoe.draw());
+        if (actionCount < 32) {
+            actions |= 1 << actionCount++;
+        }
+        return true;
+    }
+
+    // the dealer only draws if the player is still in the hand, a bust loses either way
+    void stand() {
+        if (roundOver) {
+            return;
+        }
+        roundOver = true;
+        if (actionCount < 32) {
+            actionCount++;
+        }
+        if (!BlackJackRules.isBust(player)) {
+            while (BlackJackRules.dealerHits(dealer)) {
+                dealer.add(shoe.draw());
+            }
+        }
+    }
+
+    boolean isRoundOver() {
+        return roundOver;
+    }
+
+    int hiddenCard() {
+        return dealer.get(0);
+    }
+
+    int upCard() {
+        return dealer.get(1);
+    }
+
+    int outcome() {
+        return BlackJackRules.outcome(player, dealer);
+    }
+
+    // everything the player can't see yet, the rest of the shoe plus the hidden card
+    long unseen() {
+        return Composition.add(Composition.of(shoe), hiddenCard());
+    }
+}
@@ -0,0 +1,85 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+// shuffling, building and scoring, plus whole rounds and the card blits from drawGame.
+// jmh.BlackJackBenchmark times these, each one in its own fork
+public class BlackJackBench {
+
+    // the op for one case, "name" or "name:argument"
+    public static LongSupplier fixture(String name) {
+        String op = name.contains(":") ? name.substring(0, name.indexOf(':')) : name;
+        int decks = name.contains(":") ? Integer.parseInt(name.substring(name.indexOf(':') + 1)) : 6;
+        SplittableRandom random = new SplittableRandom(42);
+        switch (op) {
+            case "shuffle": {
+                Shoe shoe = new Shoe(decks, 0.75, random);
+                return () -> {
+                    shoe.shuffle();
+                    return shoe.cards[0];
+                };
+            }
+            case "build":
+                return () -> new Shoe(decks, 0.75, random).cards[0];
+            case "handTotal": {
+                Shoe shoe = new Shoe(decks, 0.75, random);
+                Hand hand = new Hand();
+                return () -> {
+                    if (shoe.remaining() < 4) {
+                        shoe.shuffle();
+                    }
+                    hand.clear();
+                    for (int i = 0; i < 4; i++) {
+                        hand.add(shoe.draw());
+                    }
+                    return hand.total();
+                };
+            }
+            case "roundStandOn17": {
+                TableEngine table = new TableEngine(decks, 0.75, random);
+                return () -> {
+                    table.deal();
+                    while (table.canHit() && table.player.total() < 17) {
+                        table.hit();
+                    }
+                    table.stand();
+                    return table.outcome();
+                };
+            }
+            case "roundStrategy": {
+                TableEngine table = new TableEngine(decks, 0.75, random);
+                BasicStrategy strategy = new BasicStrategy(decks);
+                return () -> {
+                    table.deal();
+                    while (table.canHit() && strategy.shouldHit(table.player, table.upCard())) {
+                        table.hit();
+                    }
+                    table.stand();
+                    return table.outcome();
+                };
+            }
+            case "simulatorChunk": {
+                // 65536 hands
+                BlackJackSimulator simulator = new BlackJackSimulator(17, null, decks, 0.75);
+                return () -> simulator.playChunk(42, BlackJackSimulator.HANDS_PER_CHUNK).wins;
+            }
+            case "atlasDraw": {
+                // 2 dealer + 3 player cards
+                BufferedImage frame = new BufferedImage(800, 800, BufferedImage.TYPE_INT_ARGB);
+                Graphics g = frame.getGraphics();
+                CardAtlas atlas = CardAtlas.get();
+                return () -> {
+                    atlas.draw(g, CardAtlas.BACK, 20, 20);
+                    atlas.draw(g, 7, 135, 20);
+                    for (int i = 0; i < 3; i++) {
+                        atlas.draw(g, 13 * i, 20 + 115 * i, 500);
+                    }
+                    return frame.getRGB(60, 80);
+                };
+            }
+            default:
+                throw new IllegalArgumentException("no blackjack benchmark " + name);
+        }
+    }
+}
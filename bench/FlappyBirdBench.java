@@ -0,0 +1,133 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// move(), collision(), Flock.collide(), course generation and a trainer generation after more and
+// more pipes have been spawned, and draw() and render() into an image. pipes that scrolled off are
+// retired by the first move, so every size should cost the same. jmh.FlappyBirdBenchmark times these,
+// each one in its own fork
+public class FlappyBirdBench {
+    // a game in play with pairs pipe pairs already spawned, one every 180px, the last two on screen
+    static FlappyBird game(int pairs) {
+        FlappyBird game = new FlappyBird();
+        game.showStartPage = false;
+        for (int i = 0; i < pairs; i++) {
+            game.placePipes(i);
+            int x = game.birdX + 180 * (i - pairs + 2);
+            game.pipes.get(2 * i).x = x;
+            game.pipes.get(2 * i + 1).x = x;
+        }
+        return game;
+    }
+
+    // the op for one case, "name" or "name:argument", the pairs already spawned or the birds in the flock
+    public static LongSupplier fixture(String name) {
+        String op = name.contains(":") ? name.substring(0, name.indexOf(':')) : name;
+        int n = name.contains(":") ? Integer.parseInt(name.substring(name.indexOf(':') + 1)) : 4;
+        switch (op) {
+            case "move": {
+                FlappyBird game = game(n);
+                return () -> {
+                    game.gameOver = false;
+                    game.bird.y = game.birdY;
+                    game.velocityY = 0;
+                    game.move();
+                    return game.bird.y;
+                };
+            }
+            case "collision": {
+                FlappyBird pair = game(1);
+                FlappyBird.Pipe pipe = pair.pipes.get(0);
+                return () -> pair.collision(pair.bird, pipe) ? 1 : 0;
+            }
+            case "flockCollision":
+            case "flockCollide": {
+                // a flock against the pair in its column, one collision() per bird and pipe or the flock loop
+                FlappyBird pair = game(1);
+                FlappyBird.Pipe top = pair.pipes.get(0);
+                FlappyBird.Pipe bottom = pair.pipes.get(1);
+                top.x = bottom.x = pair.birdX;
+                Flock flock = new Flock(n, pair.birdX, pair.birdWidth, pair.birdHeight);
+                Random random = new Random(42);
+                for (int i = 0; i < n; i++) {
+                    flock.y[i] = random.nextInt(pair.boardHeight);
+                }
+                if (op.equals("flockCollide")) {
+                    return () -> {
+                        flock.collide(top.x, top.width, top.y + top.height, bottom.y);
+                        return flock.dead[0];
+                    };
+                }
+                return () -> {
+                    int hits = 0;
+                    for (int i = 0; i < n; i++) {
+                        pair.bird.y = flock.y[i];
+                        if (pair.collision(pair.bird, top) || pair.collision(pair.bird, bottom)) {
+                            hits++;
+                        }
+                    }
+                    return hits;
+                };
+            }
+            case "courseChunk": {
+                // a fresh course's first chunk, checked pair by pair against a filled reachability table
+                FlappyTrainer.REACHABILITY.solveAll();
+                long[] seed = {0};
+                return () -> FlappyTrainer.course(seed[0]++).topY(PipeCourse.CHUNK - 1);
+            }
+            case "trainerGeneration": {
+                // 1024 nn birds for up to 1000 ticks on one course
+                FlappyTrainer trainer = new FlappyTrainer(1024, FlappyTrainer.NN, 1000, 42);
+                PipeCourse course = FlappyTrainer.course(42);
+                return () -> {
+                    trainer.fly(new Flock(1024, FlappyTrainer.BIRD_X, FlappyTrainer.BIRD_WIDTH, FlappyTrainer.BIRD_HEIGHT), 0, course);
+                    return trainer.fitness[0];
+                };
+            }
+            case "draw": {
+                FlappyBird game = game(n);
+                BufferedImage frame = new BufferedImage(game.boardWidth, game.boardHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics g = frame.getGraphics();
+                return () -> {
+                    game.draw(g);
+                    return frame.getRGB(0, 0);
+                };
+            }
+            case "tickRenderDamaged":
+            case "tickRenderFullFrame":
+            case "tickRenderScrolling": {
+                // a tick and a frame like the game loop does, repainting what moved or the whole board over a
+                // still background, or shifting the buffer under the scrolling one and repainting what moved
+                FlappyBird game = game(4);
+                game.backgroundVelocityX = op.equals("tickRenderScrolling") ? -1 : 0;
+                boolean full = op.equals("tickRenderFullFrame");
+                int[] next = {4}; // pairs 0..3 are already on screen
+                BufferedImage frame = new BufferedImage(game.boardWidth, game.boardHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = frame.createGraphics();
+                return () -> {
+                    game.gameOver = false;
+                    if (game.bird.y > game.boardHeight / 2) {
+                        game.velocityY = -9;
+                    }
+                    game.move();
+                    while (game.pipes.size() < 8) {
+                        // a new pair 180px after the newest, so there are always pipes on screen
+                        int x = game.pipes.get(game.pipes.size() - 1).x + 180;
+                        game.placePipes(next[0]++);
+                        game.pipes.get(game.pipes.size() - 2).x = x;
+                        game.pipes.get(game.pipes.size() - 1).x = x;
+                    }
+                    if (full) {
+                        game.invalidateFrame();
+                    }
+                    game.render(g, 0.5);
+                    return frame.getRGB(0, 0);
+                };
+            }
+            default:
+                throw new IllegalArgumentException("no flappy bird benchmark " + name);
+        }
+    }
+}
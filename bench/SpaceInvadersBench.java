@@ -0,0 +1,115 @@
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// move() and detectCollision() at growing formation and bullet counts, and draw() and render() into an image.
+// a move benchmark rebuilds its wave every RESET_TICKS ticks so the counts stay close to the label,
+// that rebuild is part of the reported time. jmh.SpaceInvadersBenchmark times these, each one in its own fork
+public class SpaceInvadersBench {
+    static final int RESET_TICKS = 64;
+
+    // a wave of columns x rows aliens on a board wide enough that they don't bounce every tick,
+    // with the ship far enough down that the game never ends
+    static SpaceInvadersWorld game(int columns, int rows, int bullets) {
+        SpaceInvadersWorld game = new SpaceInvadersWorld();
+        game.boardWidth = Math.max(game.boardWidth, columns * game.alienWidth * 2);
+        game.shipY = 1 << 20;
+        game.bullets = new BulletPool(Math.max(256, bullets));
+        reset(game, columns, rows, bullets);
+        return game;
+    }
+
+    static void reset(SpaceInvadersWorld game, int columns, int rows, int bullets) {
+        Random random = new Random(42);
+        game.bullets.clear();
+        game.alienColumns = columns;
+        game.alienRows = rows;
+        game.alienVelocityX = 1;
+        game.createAliens();
+        int formationBottom = game.alienY + rows * game.alienHeight;
+        for (int i = 0; i < bullets; i++) {
+            int x = game.alienX + random.nextInt(columns * game.alienWidth);
+            int y = formationBottom + random.nextInt(RESET_TICKS * -game.bulletVelocityY);
+            game.bullets.spawn(x, y);
+        }
+    }
+
+    // the op for one case, "name" or "name:columns x rows x bullets" like "move:30x20x60"
+    public static LongSupplier fixture(String name) {
+        String op = name.contains(":") ? name.substring(0, name.indexOf(':')) : name;
+        String[] size = name.contains(":") ? name.substring(name.indexOf(':') + 1).split("x") : new String[] {"6", "4", "4"};
+        int columns = Integer.parseInt(size[0]), rows = Integer.parseInt(size[1]), bullets = Integer.parseInt(size[2]);
+        switch (op) {
+            case "move": {
+                SpaceInvadersWorld game = game(columns, rows, bullets);
+                long[] tick = {0};
+                return () -> {
+                    if (++tick[0] % RESET_TICKS == 0) {
+                        reset(game, columns, rows, bullets);
+                    }
+                    game.move();
+                    return game.score;
+                };
+            }
+            case "rebuildWave": {
+                SpaceInvadersWorld game = game(columns, rows, bullets);
+                return () -> {
+                    reset(game, columns, rows, bullets);
+                    return game.aliens.count;
+                };
+            }
+            case "detectCollision": {
+                SpaceInvadersWorld pair = game(1, 1, 1);
+                return () -> SpaceInvadersWorld.detectCollision(pair.bullets.x[0], pair.bullets.y[0], pair.bulletWidth,
+                        pair.bulletHeight, pair.alienX, pair.alienY, pair.alienWidth, pair.alienHeight) ? 1 : 0;
+            }
+            case "formationHitMiss": {
+                SpaceInvadersWorld pair = game(1, 1, 1);
+                AlienFormation formation = new AlienFormation(100, 60, pair.alienWidth, pair.alienHeight, 0, 0);
+                return () -> formation.hit(-100, -100, pair.bulletWidth, pair.bulletHeight);
+            }
+            case "simEpisode": {
+                // a whole headless game with the tracker, capped so one op stays well under a second
+                SpaceInvadersSim sim = new SpaceInvadersSim("tracker", 4, 10_000);
+                long[] episode = {0};
+                return () -> sim.play(episode[0]++).totalScore;
+            }
+            case "draw": {
+                SpaceInvaders game = new SpaceInvaders();
+                game.world = game(columns, rows, bullets);
+                BufferedImage frame = new BufferedImage(game.world.boardWidth, game.world.boardHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics g = frame.getGraphics();
+                return () -> {
+                    game.draw(g);
+                    return frame.getRGB(0, 0);
+                };
+            }
+            case "tickRenderDamaged":
+            case "tickRenderFullFrame": {
+                // a tick and a frame like the game loop does, repainting what moved or the whole board
+                boolean full = op.equals("tickRenderFullFrame");
+                SpaceInvaders game = new SpaceInvaders();
+                game.world = game(columns, rows, bullets);
+                game.damage = new DamageTracker(game.world.boardWidth, game.world.boardHeight);
+                BufferedImage frame = new BufferedImage(game.world.boardWidth, game.world.boardHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = frame.createGraphics();
+                long[] tick = {0};
+                return () -> {
+                    if (++tick[0] % RESET_TICKS == 0) {
+                        reset(game.world, columns, rows, bullets);
+                    }
+                    game.world.move();
+                    if (full) {
+                        game.invalidateFrame();
+                    }
+                    game.render(g, 0.5);
+                    return frame.getRGB(0, 0);
+                };
+            }
+            default:
+                throw new IllegalArgumentException("no space invaders benchmark " + name);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// the cases in BlackJackBench. the games live in the default package, which jmh doesn't take benchmarks
+// from and a named package can't import, so each case is looked up by name in @Setup and comes back as a
+// plain LongSupplier. every case runs in a fork of its own, so the one call site in run() only ever sees
+// the op it is timing
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class BlackJackBenchmark {
+    @Param({
+            "shuffle:1", "shuffle:6", "shuffle:8", "build:1", "build:6", "build:8", "handTotal",
+            "roundStandOn17", "roundStrategy", "simulatorChunk", "atlasDraw"})
+    public String fixture;
+
+    private LongSupplier op;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        op = (LongSupplier) Class.forName("BlackJackBench").getMethod("fixture", String.class).invoke(null, fixture);
+    }
+
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        blackhole.consume(op.getAsLong());
+    }
+}
@@ -0,0 +1,44 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// the cases in FlappyBirdBench, looked up by name like BlackJackBenchmark does
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FlappyBirdBenchmark {
+    @Param({
+            "move:4", "move:100", "move:1000", "move:10000", "collision",
+            "flockCollision:64", "flockCollision:4096", "flockCollide:64", "flockCollide:4096",
+            "courseChunk", "trainerGeneration", "draw:4", "draw:100", "draw:1000", "draw:10000",
+            "tickRenderDamaged", "tickRenderFullFrame", "tickRenderScrolling"})
+    public String fixture;
+
+    private LongSupplier op;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        op = (LongSupplier) Class.forName("FlappyBirdBench").getMethod("fixture", String.class).invoke(null, fixture);
+    }
+
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        blackhole.consume(op.getAsLong());
+    }
+}
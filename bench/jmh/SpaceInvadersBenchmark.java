@@ -0,0 +1,45 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// the cases in SpaceInvadersBench, looked up by name like BlackJackBenchmark does
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SpaceInvadersBenchmark {
+    @Param({
+            "move:6x10x10", "move:30x20x60", "move:100x60x300",
+            "rebuildWave:6x10x10", "rebuildWave:30x20x60", "rebuildWave:100x60x300",
+            "detectCollision", "formationHitMiss", "simEpisode",
+            "draw:6x10x10", "draw:30x20x60", "draw:100x60x300",
+            "tickRenderDamaged", "tickRenderFullFrame"})
+    public String fixture;
+
+    private LongSupplier op;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        op = (LongSupplier) Class.forName("SpaceInvadersBench").getMethod("fixture", String.class).invoke(null, fixture);
+    }
+
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        blackhole.consume(op.getAsLong());
+    }
+}
@@ -0,0 +1,157 @@
+import java.awt.Graphics2D;
+
+// remembers where things were drawn so a frame only repaints what changed. every frame the game adds
+// the bounds it draws its moving things at (add), then paints only the regions that come back from
+// collect(): this frame's bounds plus last frame's, so whatever moved away gets its background back.
+// nearby rectangles are merged into one region, and when there are too many of them or they cover
+// most of the board the whole frame is repainted instead (the full-frame fallback)
+class DamageTracker {
+    static final int MAX_REGIONS = 16;
+    static final int MERGE_SLACK = 16; // rects this close together are painted as one region
+    static final double FULL_FRAME_AREA = 0.6; // past this share of the board one big paint is cheaper
+
+    // -Dgame.fullframe=true turns damage tracking off, to compare against
+    static final boolean ALWAYS_FULL = Boolean.getBoolean("game.fullframe");
+
+    final int width;
+    final int height;
+
+    // regions are x, y, width, height packed 4 ints each
+    private int[] current = new int[MAX_REGIONS * 4];
+    private int currentCount = 0;
+    private int[] previous = new int[MAX_REGIONS * 4];
+    private int previousCount = 0;
+    private final int[] regions = new int[MAX_REGIONS * 4];
+    private int regionCount = 0;
+    private boolean full = true; // nothing has been painted yet
+
+    DamageTracker(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    // the next collect() repaints everything, for screen changes and lost buffers
+    void invalidate() {
+        full = true;
+    }
+
+    // the whole buffer is about to be copied dx pixels sideways, under a scrolling background. last
+    // frame's bounds move with the copy and the strip it leaves uncovered has to be painted. false when
+    // the next collect() is a full repaint anyway, then the caller can skip the copy
+    boolean scroll(int dx) {
+        if (full || ALWAYS_FULL || Math.abs(dx) >= width) {
+            return false;
+        }
+        int count = 0;
+        for (int i = 0; i < previousCount * 4; i += 4) {
+            int x = Math.max(previous[i] + dx, 0);
+            int x2 = Math.min(previous[i] + previous[i + 2] + dx, width);
+            if (x2 > x) {
+                previous[count * 4] = x;
+                previous[count * 4 + 1] = previous[i + 1];
+                previous[count * 4 + 2] = x2 - x;
+                previous[count * 4 + 3] = previous[i + 3];
+                count++;
+            }
+        }
+        previousCount = count;
+        add(dx < 0 ? width + dx : 0, 0, Math.abs(dx), height);
+        return true;
+    }
+
+    // something is drawn inside x, y, w, h this frame
+    void add(int x, int y, int w, int h) {
+        int x2 = Math.min(x + w, width);
+        int y2 = Math.min(y + h, height);
+        x = Math.max(x, 0);
+        y = Math.max(y, 0);
+        if (x2 <= x || y2 <= y) {
+            return; // off the board
+        }
+        currentCount = merge(current, currentCount, x, y, x2 - x, y2 - y);
+    }
+
+    // turns this frame's and last frame's bounds into the regions to paint, returns how many.
+    // one region covering the board means a full repaint
+    int collect() {
+        regionCount = 0;
+        for (int i = 0; i < currentCount * 4; i += 4) {
+            regionCount = merge(regions, regionCount, current[i], current[i + 1], current[i + 2], current[i + 3]);
+        }
+        for (int i = 0; i < previousCount * 4; i += 4) {
+            regionCount = merge(regions, regionCount, previous[i], previous[i + 1], previous[i + 2], previous[i + 3]);
+        }
+
+        long area = 0;
+        for (int i = 0; i < regionCount * 4; i += 4) {
+            area += (long) regions[i + 2] * regions[i + 3];
+        }
+        if (full || ALWAYS_FULL || area > FULL_FRAME_AREA * width * height) {
+            regions[0] = 0;
+            regions[1] = 0;
+            regions[2] = width;
+            regions[3] = height;
+            regionCount = 1;
+            full = false;
+        }
+
+        // this frame's bounds are what the next frame has to clean up
+        int[] swap = previous;
+        previous = current;
+        previousCount = currentCount;
+        current = swap;
+        currentCount = 0;
+        return regionCount;
+    }
+
+    // limits g to region i of the last collect()
+    void clip(Graphics2D g, int i) {
+        g.setClip(regions[i * 4], regions[i * 4 + 1], regions[i * 4 + 2], regions[i * 4 + 3]);
+    }
+
+    boolean isFullFrame() {
+        return regionCount == 1 && regions[2] == width && regions[3] == height;
+    }
+
+    // adds a rect to a region list, growing a region it touches or the one that grows least when full
+    private static int merge(int[] list, int count, int x, int y, int w, int h) {
+        int best = -1;
+        long bestGrowth = Long.MAX_VALUE;
+        for (int i = 0; i < count * 4; i += 4) {
+            if (touches(list, i, x, y, w, h)) {
+                return grow(list, i, x, y, w, h, count);
+            }
+            int rx = list[i], ry = list[i + 1], rw = list[i + 2], rh = list[i + 3];
+            long growth = (long) (Math.max(rx + rw, x + w) - Math.min(rx, x)) * (Math.max(ry + rh, y + h) - Math.min(ry, y))
+                    - (long) rw * rh;
+            if (growth < bestGrowth) {
+                bestGrowth = growth;
+                best = i;
+            }
+        }
+        if (count < MAX_REGIONS) {
+            int i = count * 4;
+            list[i] = x;
+            list[i + 1] = y;
+            list[i + 2] = w;
+            list[i + 3] = h;
+            return count + 1;
+        }
+        return grow(list, best, x, y, w, h, count);
+    }
+
+    private static int grow(int[] list, int best, int x, int y, int w, int h, int count) {
+        int x2 = Math.max(list[best] + list[best + 2], x + w);
+        int y2 = Math.max(list[best + 1] + list[best + 3], y + h);
+        list[best] = Math.min(list[best], x);
+        list[best + 1] = Math.min(list[best + 1], y);
+        list[best + 2] = x2 - list[best];
+        list[best + 3] = y2 - list[best + 1];
+        return count;
+    }
+
+    private static boolean touches(int[] list, int i, int x, int y, int w, int h) {
+        return x <= list[i] + list[i + 2] + MERGE_SLACK && list[i] <= x + w + MERGE_SLACK
+                && y <= list[i + 1] + list[i + 3] + MERGE_SLACK && list[i + 1] <= y + h + MERGE_SLACK;
+    }
+}
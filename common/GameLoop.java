@@ -0,0 +1,115 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+// fixed timestep loop with active rendering. the simulation always advances in whole ticks of
+// 1/ticksPerSecond and catches up with extra ticks after a slow frame, so the physics are the same
+// on every machine. frames are drawn straight into the canvas' BufferStrategy (accelerated volatile
+// back buffers where the pipeline has them) with alpha, how far the clock is between the last tick
+// and the next one, so movement can be interpolated instead of stepping. FlappyBird and SpaceInvaders
+// both run on it, common/ is compiled together with each game's folder
+class GameLoop implements Runnable {
+    interface Game {
+        // one simulation tick
+        void update();
+
+        // alpha is in [0, 1), the fraction of a tick that has passed since the last update.
+        // the buffer still holds the last frame unless invalidateFrame() was called just before
+        void render(Graphics2D g, double alpha);
+
+        // the next render has to paint the whole frame, the buffer lost what was drawn before
+        default void invalidateFrame() {}
+    }
+
+    // after a stall longer than this many ticks the rest of the backlog is dropped, not replayed
+    static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final Canvas canvas;
+    private final Game game;
+    private final long tickNanos;
+    private final long frameNanos;
+    private volatile boolean running = false;
+
+    GameLoop(Canvas canvas, Game game, int ticksPerSecond, int maxFramesPerSecond) {
+        this.canvas = canvas;
+        this.game = game;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.frameNanos = 1_000_000_000L / maxFramesPerSecond;
+    }
+
+    void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long lag = 0;
+        while (running) {
+            long frameStart = System.nanoTime();
+            lag += frameStart - previous;
+            previous = frameStart;
+
+            int ticks = 0;
+            while (lag >= tickNanos && ticks < MAX_CATCH_UP_TICKS) {
+                // key events are queued on the EDT, the game drains them at the start of its tick
+                game.update();
+                lag -= tickNanos;
+                ticks++;
+            }
+            if (ticks == MAX_CATCH_UP_TICKS) {
+                lag = Math.min(lag, tickNanos - 1);
+            }
+
+            render((double) lag / tickNanos);
+
+            long sleep = frameNanos - (System.nanoTime() - frameStart);
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+            }
+        }
+    }
+
+    private void render(double alpha) {
+        if (!canvas.isDisplayable()) {
+            return;
+        }
+        BufferStrategy strategy = canvas.getBufferStrategy();
+        if (strategy == null) {
+            canvas.createBufferStrategy(2);
+            game.invalidateFrame();
+            return;
+        }
+        // only a blit, or a flip that copies, leaves the last frame in the back buffer to draw over
+        BufferCapabilities capabilities = strategy.getCapabilities();
+        boolean invalid = capabilities.isPageFlipping()
+                && capabilities.getFlipContents() != BufferCapabilities.FlipContents.COPIED;
+        // volatile buffers can be lost at any time (display change, another app going full screen)
+        do {
+            do {
+                Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    if (invalid) {
+                        game.invalidateFrame();
+                    }
+                    game.render(g, alpha);
+                } finally {
+                    g.dispose();
+                }
+                invalid = true; // going round again means the buffer was restored empty
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
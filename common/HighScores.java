@@ -0,0 +1,320 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// the leaderboard all three games share: an append-only log of every score plus a memory mapped
+// index of the best TOP of each game. a game only ever calls submit(), which queues the score and
+// returns; a background thread writes whatever has queued up as one batch and forces it to disk
+// once (group commit), so a game over never waits on the disk. several games can run at once, every
+// batch is written under an exclusive lock on the log file, and the index is just a cache of the
+// log that's rebuilt from it whenever the two disagree.
+//
+// log:   header magic (8) version (4) record size (4), then records of
+//        time millis (8) score (8) game (1) name length (1) name (14)
+// index: header magic (8) version (4) top (4) log records it covers (8), then per game
+//        entries (4) unused (4), then top times score (8) log record (8), best first
+//
+// files go to -Dgame.scores=<dir>, ~/.minigames by default, -Dgame.scores=none keeps nothing
+// usage: java HighScores [game=flappybird|spaceinvaders|blackjack] [top=10]
+public class HighScores implements Closeable {
+    static final int FLAPPY_BIRD = 0;
+    static final int SPACE_INVADERS = 1;
+    static final int BLACKJACK = 2;
+    static final String[] GAMES = {"flappybird", "spaceinvaders", "blackjack"};
+    static final int MAX_GAMES = 8;
+    static final int TOP = 100;
+
+    static final long LOG_MAGIC = 0x5343524C4F473031L; // "SCRLOG01"
+    static final long INDEX_MAGIC = 0x5343524944583031L; // "SCRIDX01"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 32;
+    static final int NAME_BYTES = 14;
+    static final int GAME_BYTES = 8 + TOP * 16;
+    static final int INDEX_BYTES = HEADER_BYTES + MAX_GAMES * GAME_BYTES;
+
+    static final int QUEUE = 1024;
+    static final int BATCH = 256;
+    static final long LINGER_MILLIS = 20; // how long a batch waits for more scores before it's written
+
+    private static HighScores shared;
+
+    final Path dir;
+    private final ArrayBlockingQueue<long[]> queue = new ArrayBlockingQueue<>(QUEUE); // game, score, time
+    private final byte[] name;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Thread writer;
+    private volatile boolean closing = false;
+    private FileChannel log;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    final AtomicLong dropped = new AtomicLong(); // submitted while the queue was full
+    long batches = 0;
+    long written = 0;
+
+    HighScores(Path dir) {
+        this.dir = dir;
+        byte[] user = System.getProperty("user.name", "").getBytes(StandardCharsets.UTF_8);
+        name = Arrays.copyOf(user, Math.min(user.length, NAME_BYTES));
+    }
+
+    // the store every game in this process submits to, null dir when it's turned off
+    static synchronized HighScores shared() {
+        if (shared == null) {
+            String dir = System.getProperty("game.scores", Paths.get(System.getProperty("user.home"), ".minigames").toString());
+            shared = new HighScores(dir.equals("none") ? null : Paths.get(dir));
+        }
+        return shared;
+    }
+
+    // queues a finished game's score, never blocks
+    void submit(int game, long score) {
+        if (dir == null || closing) {
+            return;
+        }
+        if (!queue.offer(new long[] {game, score, System.currentTimeMillis()})) {
+            dropped.incrementAndGet();
+            return;
+        }
+        start();
+    }
+
+    // starts the writer, games do it up front so their first game over doesn't pay for a thread.
+    // no file is touched before the first score
+    HighScores start() {
+        // not synchronized, the writer holds this store's lock while it waits on the disk
+        if (dir != null && started.compareAndSet(false, true)) {
+            writer = new Thread(this::writeLoop, "high scores");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
+        return this;
+    }
+
+    private void writeLoop() {
+        List<long[]> batch = new ArrayList<>();
+        try {
+            while (!closing || !queue.isEmpty()) {
+                long[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // whatever else turns up in the next few ms goes into the same write and the same force
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MILLIS);
+                while (batch.size() < BATCH && !closing) {
+                    long[] next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, BATCH - batch.size());
+                write(batch);
+                batch.clear();
+            }
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void open() throws IOException {
+        if (log != null) {
+            return;
+        }
+        Files.createDirectories(dir);
+        log = FileChannel.open(dir.resolve("scores.log"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        indexChannel = FileChannel.open(dir.resolve("scores.idx"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_BYTES);
+        index.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // appends the batch at the end of the log and merges it into the index, with the log locked
+    // against the other games for the whole of it, then forces both once
+    @SuppressWarnings("try") // the lock is only held for the block, nothing in it uses it
+    private synchronized void write(List<long[]> batch) throws IOException {
+        open();
+        try (FileLock lock = log.lock()) {
+            long records = logRecords();
+            catchUp(records);
+
+            ByteBuffer out = ByteBuffer.allocate(batch.size() * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (long[] score : batch) {
+                out.putLong(score[2]).putLong(score[1]).put((byte) score[0]).put((byte) name.length).put(name);
+                out.position(out.position() + NAME_BYTES - name.length);
+            }
+            out.flip();
+            long at = HEADER_BYTES + records * RECORD_BYTES; // a torn record a crash left behind gets overwritten
+            while (out.hasRemaining()) {
+                at += log.write(out, at);
+            }
+            log.force(false);
+
+            for (int i = 0; i < batch.size(); i++) {
+                insert((int) batch.get(i)[0], batch.get(i)[1], records + i);
+            }
+            index.putLong(16, records + batch.size());
+            index.force();
+        }
+        batches++;
+        written += batch.size();
+    }
+
+    // whole records in the log, writing its header first when it's new
+    private long logRecords() throws IOException {
+        if (log.size() < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(LOG_MAGIC).putInt(VERSION).putInt(RECORD_BYTES).position(HEADER_BYTES).flip();
+            log.write(header, 0);
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        log.read(header, 0);
+        if (header.getLong(0) != LOG_MAGIC || header.getInt(12) != RECORD_BYTES) {
+            throw new IOException(dir.resolve("scores.log") + " is not a score log");
+        }
+        return (log.size() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    // brings the index up to records log records, from scratch when it isn't one of ours or is ahead
+    // of the log, otherwise just the records it hasn't seen (another process crashed between the two)
+    private void catchUp(long records) throws IOException {
+        long covered = index.getLong(0) == INDEX_MAGIC && index.getInt(12) == TOP ? index.getLong(16) : -1;
+        if (covered == records) {
+            return;
+        }
+        if (covered < 0 || covered > records) {
+            for (int i = 0; i < INDEX_BYTES; i++) {
+                index.put(i, (byte) 0);
+            }
+            index.putLong(0, INDEX_MAGIC).putInt(8, VERSION).putInt(12, TOP);
+            covered = 0;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long i = covered; i < records; i++) {
+            record.clear();
+            log.read(record, HEADER_BYTES + i * RECORD_BYTES);
+            insert(record.get(16), record.getLong(8), i);
+        }
+        index.putLong(16, records);
+    }
+
+    // puts a score into its game's best TOP if it makes it, ties go to the older score
+    private void insert(int game, long score, long record) {
+        if (game < 0 || game >= MAX_GAMES) {
+            return;
+        }
+        int base = HEADER_BYTES + game * GAME_BYTES;
+        int entries = index.getInt(base);
+        int at = entries;
+        while (at > 0 && index.getLong(base + 8 + (at - 1) * 16) < score) {
+            at--;
+        }
+        if (at == TOP) {
+            return;
+        }
+        for (int i = Math.min(entries, TOP - 1); i > at; i--) {
+            index.putLong(base + 8 + i * 16, index.getLong(base + 8 + (i - 1) * 16));
+            index.putLong(base + 16 + i * 16, index.getLong(base + 16 + (i - 1) * 16));
+        }
+        index.putLong(base + 8 + at * 16, score);
+        index.putLong(base + 16 + at * 16, record);
+        index.putInt(base, Math.min(entries + 1, TOP));
+    }
+
+    // the best n scores of game as lines of "score name date", read from the index with the log
+    // locked so another game's batch isn't read halfway through
+    @SuppressWarnings("try")
+    synchronized List<String> top(int game, int n) throws IOException {
+        open();
+        List<String> lines = new ArrayList<>();
+        try (FileLock lock = log.lock()) {
+            catchUp(logRecords());
+            int base = HEADER_BYTES + game * GAME_BYTES;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < Math.min(n, index.getInt(base)); i++) {
+                record.clear();
+                log.read(record, HEADER_BYTES + index.getLong(base + 16 + i * 16) * RECORD_BYTES);
+                String player = new String(record.array(), 18, record.get(17), StandardCharsets.UTF_8);
+                lines.add(String.format("%,12d  %-14s %tF %<tR", index.getLong(base + 8 + i * 16), player,
+                        record.getLong(0)));
+            }
+        }
+        return lines;
+    }
+
+    // writes what's still queued and stops the writer
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        Thread writer = this.writer;
+        if (writer != null) {
+            try {
+                writer.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (log != null) {
+                log.close();
+                indexChannel.close();
+                log = null;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String game = arg(args, "game", GAMES[0]);
+        int n = Integer.parseInt(arg(args, "top", "10"));
+        HighScores scores = shared();
+        if (scores.dir == null) {
+            System.out.println("high scores are turned off");
+            return;
+        }
+        int id = Arrays.asList(GAMES).indexOf(game);
+        if (id < 0) {
+            System.out.println("unknown game " + game + ", one of " + String.join(", ", GAMES));
+            return;
+        }
+        System.out.println("top " + n + " " + game + " in " + scores.dir);
+        for (String line : scores.top(id, n)) {
+            System.out.println(line);
+        }
+        scores.close();
+    }
+
+    static String arg(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// lock-free single producer / single consumer ring of input commands. the EDT offers key and mouse
+// events as they arrive, stamped with System.nanoTime(), and the game drains them at the start of a
+// tick, so input is only ever applied at one point of the simulation and on the simulation's thread.
+// the two indexes only grow, each side writes its own one with a release store (lazySet) and reads
+// the other's, so nothing is locked and a full ring just drops the event
+class InputQueue {
+    static final int CAPACITY = 256; // power of two
+
+    // what a command is, in its low 2 bits
+    static final int KEY_RELEASED = 0;
+    static final int KEY_PRESSED = 1;
+    static final int CLICK = 2;
+
+    interface Handler {
+        void command(int command, long nanos);
+    }
+
+    private final int[] commands = new int[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    private final AtomicLong head = new AtomicLong(); // next slot to drain, only the consumer moves it
+    private final AtomicLong tail = new AtomicLong(); // next slot to fill, only the producer moves it
+
+    static int keyPressed(int keyCode) {
+        return keyCode << 2 | KEY_PRESSED;
+    }
+
+    static int keyReleased(int keyCode) {
+        return keyCode << 2 | KEY_RELEASED;
+    }
+
+    // x and y under 4096, plenty for a board
+    static int click(int x, int y) {
+        return (x << 12 | y) << 2 | CLICK;
+    }
+
+    static int kind(int command) {
+        return command & 3;
+    }
+
+    static int keyCode(int command) {
+        return command >>> 2;
+    }
+
+    static int x(int command) {
+        return command >>> 14;
+    }
+
+    static int y(int command) {
+        return (command >>> 2) & 4095;
+    }
+
+    // producer side, false when the game is CAPACITY commands behind and this one is dropped
+    boolean offer(int command) {
+        long t = tail.get();
+        if (t - head.get() == CAPACITY) {
+            return false;
+        }
+        int i = (int) t & (CAPACITY - 1);
+        commands[i] = command;
+        times[i] = System.nanoTime();
+        tail.lazySet(t + 1); // publishes the slot
+        return true;
+    }
+
+    // consumer side, hands every waiting command to handler in arrival order and returns how many
+    int drain(Handler handler) {
+        long h = head.get();
+        long t = tail.get();
+        for (long n = h; n < t; n++) {
+            int i = (int) n & (CAPACITY - 1);
+            handler.command(commands[i], times[i]);
+        }
+        head.lazySet(t); // frees the slots for the producer
+        return (int) (t - h);
+    }
+}
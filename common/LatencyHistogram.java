@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+// nanosecond latencies counted into log-linear buckets: 32 buckets for every power of two, so any
+// value is reported within about 3% and record() is a couple of shifts and one increment, with no
+// allocation. one thread records, others may read at any time and just see slightly stale counts
+class LatencyHistogram {
+    static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[index(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    static int index(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // the middle of bucket i
+    static long value(int i) {
+        if (i < SUB_BUCKETS) {
+            return i;
+        }
+        int shift = (i >>> SUB_BITS) - 1;
+        long low = (long) (SUB_BUCKETS + (i & (SUB_BUCKETS - 1))) << shift;
+        return low + ((1L << shift) >>> 1);
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    // p in [0, 1], 0.99 for p99
+    long percentile(double p) {
+        long target = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(value(i), max);
+            }
+        }
+        return max;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+}
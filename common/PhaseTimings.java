@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// one LatencyHistogram per phase of a game's frame (move, collision, draw, ...). a phase is timed with
+//     long start = System.nanoTime(); ...; timings.record(PHASE, start);
+// hudLines() is what the in game overlay shows, and with -Dgame.timings=<dir> every phase is written
+// to <dir>/<game>-timings.csv and .json when the program exits
+class PhaseTimings {
+    static final long HUD_REFRESH_NANOS = 250_000_000L; // the overlay text is rebuilt 4 times a second
+
+    // -Dgame.hud=true starts with the overlay showing
+    static final boolean HUD = Boolean.getBoolean("game.hud");
+
+    final String game;
+    private final String[] names;
+    private final LatencyHistogram[] histograms;
+    private String[] hudLines = new String[0];
+    private long hudBuiltAt;
+
+    PhaseTimings(String game, String... names) {
+        this.game = game;
+        this.names = names;
+        histograms = new LatencyHistogram[names.length];
+        for (int i = 0; i < names.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        exportOnExit();
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    LatencyHistogram get(int phase) {
+        return histograms[phase];
+    }
+
+    void record(int phase, long startNanos) {
+        histograms[phase].record(System.nanoTime() - startNanos);
+    }
+
+    String[] hudLines() {
+        long now = System.nanoTime();
+        if (hudLines.length == 0 || now - hudBuiltAt >= HUD_REFRESH_NANOS) {
+            String[] lines = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                LatencyHistogram h = histograms[i];
+                lines[i] = String.format("%-9s p50 %7.1f  p99 %7.1f  p999 %7.1f us", names[i],
+                        h.percentile(0.50) / 1e3, h.percentile(0.99) / 1e3, h.percentile(0.999) / 1e3);
+            }
+            hudLines = lines;
+            hudBuiltAt = now;
+        }
+        return hudLines;
+    }
+
+    void writeCsv(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("phase,count,mean_ns,p50_ns,p99_ns,p999_ns,max_ns");
+            for (int i = 0; i < names.length; i++) {
+                LatencyHistogram h = histograms[i];
+                out.printf("%s,%d,%.0f,%d,%d,%d,%d%n", names[i], h.count(), h.mean(),
+                        h.percentile(0.50), h.percentile(0.99), h.percentile(0.999), h.max());
+            }
+        }
+    }
+
+    void writeJson(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.printf("{\"game\": \"%s\", \"phases\": [%n", game);
+            for (int i = 0; i < names.length; i++) {
+                LatencyHistogram h = histograms[i];
+                out.printf("  {\"phase\": \"%s\", \"count\": %d, \"mean_ns\": %.0f, \"p50_ns\": %d, \"p99_ns\": %d, "
+                        + "\"p999_ns\": %d, \"max_ns\": %d}%s%n", names[i], h.count(), h.mean(),
+                        h.percentile(0.50), h.percentile(0.99), h.percentile(0.999), h.max(),
+                        i < names.length - 1 ? "," : "");
+            }
+            out.println("]}");
+        }
+    }
+
+    private void exportOnExit() {
+        String dir = System.getProperty("game.timings");
+        if (dir == null) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Path base = Paths.get(dir);
+                Files.createDirectories(base);
+                writeCsv(base.resolve(game + "-timings.csv"));
+                writeJson(base.resolve(game + "-timings.json"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+    }
+}
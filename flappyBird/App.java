@@ -17,5 +17,6 @@ public class App {
         frame.pack();
         flappyBird.requestFocus();
         frame.setVisible(true);
+        flappyBird.start();
     }
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.Random;
+import java.awt.image.BufferedImage;
 import javax.swing.*;
 
-public class FlappyBird extends JPanel implements ActionListener, KeyListener {
+public class FlappyBird extends Canvas implements GameLoop.Game, KeyListener, InputQueue.Handler {
+    // timed phases, H shows them at the bottom of the screen
+    static final int MOVE = 0;
+    static final int COLLISION = 1;
+    static final int DRAW = 2;
+    static final int RENDER = 3;
+    static final int INPUT = 4; // from the key or click to the end of the first frame drawn after it
+
     int boardWidth = 360;
     int boardHeight = 640;
     Image backgroundImg;
@@ -12,6 +18,14 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
     Image topPipeImg;
     Image bottomPipeImg;
 
+    // the images above at the size they're drawn, in the screen's format
+    SpriteCache sprites = new SpriteCache();
+    int backgroundSprite;
+    int birdSprite;
+    int titleBirdSprite; // the big one on the start page
+    int topPipeSprite;
+    int bottomPipeSprite;
+
     // Bird
     int birdX = boardWidth / 8;
     int birdY = boardWidth / 2;
@@ -47,134 +61,306 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
         Pipe(Image img) {
             this.img = img;
         }
+
+        // back to a fresh pipe at the right edge, for a pooled one coming round again
+        void reset(Image img) {
+            x = pipeX;
+            y = pipeY;
+            width = pipeWidth;
+            height = pipeHeight;
+            this.img = img;
+            passed = false;
+        }
     }
 
     // Game logic
     Bird bird;
+    int prevBirdY = birdY; // where the bird was before the last tick, for interpolated drawing
     int velocityX = -4;
+    // the background scrolls slower than the pipes, -Dflappy.backgroundSpeed=0 keeps it still
+    int backgroundVelocityX = -Integer.getInteger("flappy.backgroundSpeed", 1);
+    int backgroundX = 0;
+    int drawnBackgroundX = 0; // where the buffer has the background, drawBackgroundX() of the last frame
     int velocityY = 0;
     int gravity = 1;
-    ArrayList<Pipe> pipes;
-    Random random = new Random();
-
-    Timer gameLoop;
-    Timer placePipeTimer;
+    PipeRing pipes; // on screen only, oldest first
+    int pipeCursor = 0; // first pipe the bird hasn't cleared yet
+    // -Dflappy.seed=<n> plays the same course every game, otherwise every game gets a new seed
+    static final Long SEED = Long.getLong("flappy.seed");
+    PipeCourse course;
+    Reachability reachability; // keeps every pair reachable from the last, shared by all this game's courses
+
+    GameLoop gameLoop;
+    DamageTracker damage = new DamageTracker(boardWidth, boardHeight);
+    int drawnScreen = -1; // which page the buffer holds, any change repaints everything
+    Font scoreFont = new Font("Arial", Font.BOLD, 32);
+    PhaseTimings timings = new PhaseTimings("flappybird", "move", "collision", "draw", "render", "input");
+    boolean showTimings = PhaseTimings.HUD;
+    Font hudFont = new Font("Monospaced", Font.PLAIN, 11);
+
+    // keys and clicks go through here and are applied at the start of a tick, on the game loop
+    InputQueue inputQueue = new InputQueue();
+    long oldestInputNanos; // earliest event not on screen yet, 0 when there is none
+    int ticksPerSecond = 60;
+    int pipeIntervalTicks = 90; // a new pair every 1.5 s of game time
+    int ticks = 0;
     boolean gameOver = false;
     double score = 0;
+    HighScores scores = HighScores.shared().start(); // every finished game's score goes here
 
     // Game state control
     boolean showStartPage = true;
     boolean showInstructions = false;
-    JButton startButton, instructionButton, retryButton;
+    // buttons are drawn on the canvas, these are their bounds
+    Rectangle startButton = new Rectangle(100, 250, 150, 50);
+    Rectangle instructionButton = new Rectangle(100, 350, 150, 50);
+    Rectangle retryButton = new Rectangle(130, 400, 150, 50);
 
     FlappyBird() {
         setPreferredSize(new Dimension(boardWidth, boardHeight));
         setFocusable(true);
+        setIgnoreRepaint(true); // the game loop draws every frame itself
         addKeyListener(this);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                inputQueue.offer(InputQueue.click(e.getX(), e.getY()));
+            }
+        });
+
+        backgroundImg = new ImageIcon(getClass().getResource("flappybirdbg.png")).getImage();
+        birdImg = new ImageIcon(getClass().getResource("flappybird.png")).getImage();
+        topPipeImg = new ImageIcon(getClass().getResource("toppipe.png")).getImage();
+        bottomPipeImg = new ImageIcon(getClass().getResource("bottompipe.png")).getImage();
 
-        backgroundImg = new ImageIcon(getClass().getResource("./flappybirdbg.png")).getImage();
-        birdImg = new ImageIcon(getClass().getResource("./flappybird.png")).getImage();
-        topPipeImg = new ImageIcon(getClass().getResource("./toppipe.png")).getImage();
-        bottomPipeImg = new ImageIcon(getClass().getResource("./bottompipe.png")).getImage();
+        // the pngs are several times bigger than they're drawn, scale them once instead of every frame
+        backgroundSprite = sprites.add(backgroundImg, boardWidth, boardHeight, Transparency.OPAQUE);
+        birdSprite = sprites.add(birdImg, birdWidth, birdHeight, Transparency.TRANSLUCENT);
+        titleBirdSprite = sprites.add(birdImg, birdWidth * 4, birdHeight * 4, Transparency.TRANSLUCENT);
+        topPipeSprite = sprites.add(topPipeImg, pipeWidth, pipeHeight, Transparency.TRANSLUCENT);
+        bottomPipeSprite = sprites.add(bottomPipeImg, pipeWidth, pipeHeight, Transparency.TRANSLUCENT);
 
         // Bird initialization
-        bird = new Bird(birdImg);
-        pipes = new ArrayList<>();
-
-        // Start page buttons
-        startButton = createButton("START", 100, 250);
-        instructionButton = createButton("INSTRUCTIONS", 100, 350);
-        retryButton = createButton("RETRY", 130, 400);
-        retryButton.setVisible(false);
-        add(startButton);
-        add(instructionButton);
-        add(retryButton);
-
-        // Pipe placement
-        placePipeTimer = new Timer(1500, e -> placePipes());
-
-        // Game loop
-        gameLoop = new Timer(1000 / 60, this);
-    }
-
-    // Helper method for creating buttons with simple style and bold white text
-    private JButton createButton(String text, int x, int y) {
-        JButton button = new JButton(text);
-        button.setBounds(x, y, 150, 50);
-        button.setFont(new Font("Arial", Font.BOLD, 16));
-        button.setFocusPainted(false);
-        button.setContentAreaFilled(false);
-        button.setForeground(Color.white);
-        button.setBorder(BorderFactory.createLineBorder(Color.white));
-        button.setHorizontalAlignment(SwingConstants.CENTER);
-        button.addActionListener(e -> handleButtonClick(text));
-        return button;
+        bird = new Bird(sprites.get(birdSprite));
+        pipes = new PipeRing(16, () -> new Pipe(null));
+        reachability = new Reachability(boardWidth, boardHeight, birdX, birdWidth, birdHeight, pipeWidth, -velocityX,
+                boardHeight / 4, pipeIntervalTicks, PipeCourse.minGapTop(pipeY, pipeHeight),
+                PipeCourse.maxGapTop(pipeY, pipeHeight));
+        Thread solver = new Thread(reachability::solveAll, "reachability");
+        solver.setDaemon(true);
+        solver.start();
+        course = course(seed());
+
+        // Game loop, 60 ticks a second drawn at up to 120 fps
+        gameLoop = new GameLoop(this, this, ticksPerSecond, 120);
+    }
+
+    // call once the window is showing
+    public void start() {
+        gameLoop.start();
+    }
+
+    // Helper method for drawing buttons with simple style and bold white text
+    private void drawButton(Graphics g, String text, Rectangle bounds) {
+        g.setColor(Color.white);
+        g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setFont(new Font("Arial", Font.BOLD, 16));
+        FontMetrics metrics = g.getFontMetrics();
+        int textX = bounds.x + (bounds.width - metrics.stringWidth(text)) / 2;
+        int textY = bounds.y + (bounds.height - metrics.getHeight()) / 2 + metrics.getAscent();
+        g.drawString(text, textX, textY);
     }
 
     // Start game
     private void startGame() {
         showStartPage = false;
         showInstructions = false;
-        startButton.setVisible(false);
-        instructionButton.setVisible(false);
-        retryButton.setVisible(false);
 
         // Reset game state
         bird.y = birdY;
+        prevBirdY = birdY;
         velocityY = 0;
         pipes.clear();
+        pipeCursor = 0;
+        course = course(seed());
         score = 0;
+        ticks = 0;
         gameOver = false;
-
-        placePipeTimer.start();
-        gameLoop.start();
     }
 
     private void showGameInstructions() {
+        showStartPage = false;
         showInstructions = true;
-        startButton.setVisible(false);
-        instructionButton.setVisible(false);
-        retryButton.setVisible(false);
-        repaint();
     }
 
-    private void handleButtonClick(String buttonText) {
-        if (buttonText.equals("START")) {
+    private void handleClick(Point point) {
+        if (showStartPage && startButton.contains(point)) {
             startGame();
-        } else if (buttonText.equals("INSTRUCTIONS")) {
+        } else if (showStartPage && instructionButton.contains(point)) {
             showGameInstructions();
-        } else if (buttonText.equals("RETRY")) {
+        } else if (gameOver && retryButton.contains(point)) {
             startGame();
         }
     }
 
-    void placePipes() {
-        int randomPipeY = (int) (pipeY - pipeHeight / 4 - Math.random() * (pipeHeight / 2));
-        int openingSpace = boardHeight / 4;
+    boolean isPlaying() {
+        return !showStartPage && !showInstructions && !gameOver;
+    }
+
+    static long seed() {
+        return SEED != null ? SEED : System.nanoTime();
+    }
+
+    // this board's course for seed, FlappyTrainer flies the same ones
+    PipeCourse course(long seed) {
+        return new PipeCourse(seed, pipeY, pipeHeight, boardHeight / 4, pipeIntervalTicks, reachability);
+    }
+
+    // pair of the course enters on the right
+    void placePipes(int pair) {
+        Pipe topPipe = pipes.add();
+        topPipe.reset(sprites.get(topPipeSprite));
+        topPipe.y = course.topY(pair);
+
+        Pipe bottomPipe = pipes.add();
+        bottomPipe.reset(sprites.get(bottomPipeSprite));
+        bottomPipe.y = topPipe.y + pipeHeight + course.opening;
+    }
+
+    @Override
+    public void invalidateFrame() {
+        damage.invalidate();
+    }
+
+    // 0 start page, 1 instructions, 2 playing, 3 game over
+    int screen() {
+        if (showStartPage) return 0;
+        if (showInstructions) return 1;
+        return gameOver ? 3 : 2;
+    }
+
+    // only the background behind things that moved gets repainted, the rest of the buffer is last frame
+    @Override
+    public void render(Graphics2D g, double alpha) {
+        long start = System.nanoTime();
+        Image oldTopPipe = sprites.get(topPipeSprite);
+        if (sprites.update(getGraphicsConfiguration())) {
+            spritesRebuilt(oldTopPipe);
+            damage.invalidate();
+        }
+        int screen = screen();
+        if (screen != drawnScreen) {
+            drawnScreen = screen;
+            damage.invalidate();
+        }
+        if (!isPlaying()) {
+            alpha = 1; // nothing moves on the other pages, they are only painted after a change
+        } else {
+            scrollBuffer(g, alpha);
+            addDamage(g, alpha);
+        }
+        drawnBackgroundX = drawBackgroundX(alpha);
+
+        if (showTimings) {
+            damage.add(0, boardHeight - timings.size() * 13 - 8, boardWidth, timings.size() * 13 + 8);
+        }
+
+        int regions = damage.collect();
+        for (int i = 0; i < regions; i++) {
+            damage.clip(g, i);
+            long drawStart = System.nanoTime();
+            draw(g, alpha);
+            timings.record(DRAW, drawStart);
+        }
+        g.setClip(null);
+        timings.record(RENDER, start);
+        if (oldestInputNanos != 0) {
+            timings.record(INPUT, oldestInputNanos);
+            oldestInputNanos = 0;
+        }
+    }
+
+    // the window moved to a display with another pixel format, the bird and the pipes on the board get
+    // the sprites made for it
+    void spritesRebuilt(Image oldTopPipe) {
+        bird.img = sprites.get(birdSprite);
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            pipe.img = sprites.get(pipe.img == oldTopPipe ? topPipeSprite : bottomPipeSprite);
+        }
+    }
+
+    // the background has moved since the last frame: instead of painting all of it, the buffer is copied
+    // along with it, which leaves the new strip on the edge and last frame's bird, pipes and score
+    // (moved by the copy) for the damaged regions to paint
+    void scrollBuffer(Graphics2D g, double alpha) {
+        int dx = drawBackgroundX(alpha) - drawnBackgroundX;
+        if (dx > boardWidth / 2) {
+            dx -= boardWidth; // wrapped round the tile
+        } else if (dx < -boardWidth / 2) {
+            dx += boardWidth;
+        }
+        if (dx != 0 && damage.scroll(dx)) {
+            g.copyArea(0, 0, boardWidth, boardHeight, dx, 0);
+        }
+    }
+
+    // where drawGame is going to put the bird, the pipes and the score
+    void addDamage(Graphics2D g, double alpha) {
+        damage.add(bird.x, drawBirdY(alpha), bird.width, bird.height);
+        int pipeLag = pipeLag(alpha);
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            damage.add(pipe.x + pipeLag, pipe.y, pipe.width, pipe.height);
+        }
+        FontMetrics metrics = g.getFontMetrics(scoreFont);
+        damage.add(10, 35 - metrics.getAscent(), metrics.stringWidth(String.valueOf((int) score)),
+                metrics.getAscent() + metrics.getDescent());
+    }
 
-        Pipe topPipe = new Pipe(topPipeImg);
-        topPipe.y = randomPipeY;
-        pipes.add(topPipe);
+    int drawBirdY(double alpha) {
+        return prevBirdY + (int) Math.round((bird.y - prevBirdY) * alpha);
+    }
 
-        Pipe bottomPipe = new Pipe(bottomPipeImg);
-        bottomPipe.y = topPipe.y + pipeHeight + openingSpace;
-        pipes.add(bottomPipe);
+    // they all scroll at velocityX so one offset interpolates them all
+    int pipeLag(double alpha) {
+        return (int) Math.round(velocityX * (alpha - 1));
     }
 
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        draw(g);
+    // left edge of the background tile that's on screen, another one follows it on the right
+    int drawBackgroundX(double alpha) {
+        return Math.floorMod(backgroundX + (int) Math.round(backgroundVelocityX * (alpha - 1)), boardWidth);
     }
 
     public void draw(Graphics g) {
-        g.drawImage(backgroundImg, 0, 0, this.boardWidth, this.boardHeight, null);
+        draw(g, 1);
+    }
+
+    // alpha says how far between the previous tick and this one to draw the moving things
+    public void draw(Graphics g, double alpha) {
+        // the background tiles across the board, two copies cover it wherever it has scrolled to
+        BufferedImage background = sprites.get(backgroundSprite);
+        int backgroundX = drawBackgroundX(alpha);
+        g.drawImage(background, backgroundX, 0, null);
+        if (backgroundX > 0) {
+            g.drawImage(background, backgroundX - boardWidth, 0, null);
+        }
 
         if (showStartPage) {
             drawStartPage(g);
         } else if (showInstructions) {
             drawInstructions(g);
         } else {
-            drawGame(g);
+            drawGame(g, alpha);
+        }
+
+        if (showTimings) {
+            g.setFont(hudFont);
+            g.setColor(Color.white);
+            String[] lines = timings.hudLines();
+            for (int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], 4, boardHeight - (lines.length - i) * 13 + 4);
+            }
         }
     }
 
@@ -184,7 +370,10 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
         g.drawString("FLAPPY BIRD", 40, 100);
         
         // Draw bird image below the title
-        g.drawImage(birdImg, 100, 200, birdWidth * 4, birdHeight * 4, null);
+        g.drawImage(sprites.get(titleBirdSprite), 100, 200, null);
+
+        drawButton(g, "START", startButton);
+        drawButton(g, "INSTRUCTIONS", instructionButton);
     }
 
     private void drawInstructions(Graphics g) {
@@ -208,22 +397,28 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
         g.drawString("P.S. Don't blame me if you get addicted.", 50, y); // A joke to enhance the experience
     }
 
-    private void drawGame(Graphics g) {
+    private void drawGame(Graphics g, double alpha) {
         // Draw bird
-        g.drawImage(bird.img, bird.x, bird.y, bird.width, bird.height, null);
-
-        // Draw pipes
-        for (Pipe pipe : pipes) {
-            g.drawImage(pipe.img, pipe.x, pipe.y, pipe.width, pipe.height, null);
+        g.drawImage(bird.img, bird.x, drawBirdY(alpha), null);
+
+        // Draw pipes, skipping the ones a damaged region's clip doesn't reach
+        int pipeLag = pipeLag(alpha);
+        Rectangle clip = g.getClipBounds();
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            if (clip != null && !clip.intersects(pipe.x + pipeLag, pipe.y, pipe.width, pipe.height)) {
+                continue;
+            }
+            g.drawImage(pipe.img, pipe.x + pipeLag, pipe.y, null);
         }
 
         // Score display
-        g.setFont(new Font("Arial", Font.BOLD, 32));
+        g.setFont(scoreFont);
         g.setColor(Color.white);
         if (gameOver) {
             g.drawString("GAME OVER", boardWidth / 6, boardHeight / 2 - 50);
             g.drawString("SCORE: " + (int) score, boardWidth / 4, boardHeight / 2);
-            retryButton.setVisible(true);
+            drawButton(g, "RETRY", retryButton);
         } else {
             g.drawString(String.valueOf((int) score), 10, 35);
         }
@@ -233,30 +428,41 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
         if (gameOver) return;
 
         // Bird movement
+        prevBirdY = bird.y;
         velocityY += gravity;
         bird.y += velocityY;
         bird.y = Math.max(bird.y, 0);
 
-        // Pipes movement and collision times
-        for (Pipe pipe : pipes) {
-            pipe.x += velocityX;
-
-            if (!pipe.passed && bird.x > pipe.x + pipe.width) {
-                score += 0.5;
-                pipe.passed = true;
-            }
+        // Pipes and background movement
+        backgroundX = Math.floorMod(backgroundX + backgroundVelocityX, boardWidth);
+        for (int i = 0; i < pipes.size(); i++) {
+            pipes.get(i).x += velocityX;
+        }
 
-            if (collision(bird, pipe)) {
+        // Collision times. pipes are sorted by x and only move left, so the bird's column is found by
+        // moving a cursor past the pipes it has cleared (scoring them on the way) and only the pair or
+        // two from there that reach its x are tested
+        long collisionStart = System.nanoTime();
+        while (pipeCursor < pipes.size() && bird.x > pipes.get(pipeCursor).x + pipes.get(pipeCursor).width) {
+            Pipe pipe = pipes.get(pipeCursor++);
+            score += 0.5;
+            pipe.passed = true;
+        }
+        for (int i = pipeCursor; i < pipes.size() && pipes.get(i).x < bird.x + bird.width; i++) {
+            if (collision(bird, pipes.get(i))) {
                 gameOver = true;
-                gameLoop.stop();
-                placePipeTimer.stop();
             }
         }
+        timings.record(COLLISION, collisionStart);
+
+        // pipes that scrolled off the left edge go back to the pool, the cursor is already past them
+        while (pipes.size() > 0 && pipes.get(0).x + pipes.get(0).width < 0) {
+            pipes.retire();
+            pipeCursor--;
+        }
 
         if (bird.y > boardHeight) {
             gameOver = true;
-            gameLoop.stop();
-            placePipeTimer.stop();
         }
     }
 
@@ -268,21 +474,51 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
+    public void update() {
+        inputQueue.drain(this);
+        if (!isPlaying()) {
+            return;
+        }
+        // Pipe placement, the course says which pair spawns on which tick
+        long start = System.nanoTime();
+        int pair = course.pairAt(++ticks);
+        if (pair >= 0) {
+            placePipes(pair);
+        }
         move();
-        repaint();
+        if (gameOver) {
+            scores.submit(HighScores.FLAPPY_BIRD, (int) score);
+        }
+        timings.record(MOVE, start);
     }
 
+    // a key or click the EDT queued, applied at the start of the tick
     @Override
-    public void keyPressed(KeyEvent e) {
-        if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            if (showStartPage) {
-                startGame(); // Start the game on first space bar press
-            } else if (!gameOver) {
-                velocityY = -9; // Make the bird jump
+    public void command(int command, long nanos) {
+        if (oldestInputNanos == 0) {
+            oldestInputNanos = nanos;
+        }
+        if (InputQueue.kind(command) == InputQueue.CLICK) {
+            handleClick(new Point(InputQueue.x(command), InputQueue.y(command)));
+        } else if (InputQueue.kind(command) == InputQueue.KEY_PRESSED) {
+            int key = InputQueue.keyCode(command);
+            if (key == KeyEvent.VK_H) {
+                showTimings = !showTimings;
+                damage.invalidate();
+            } else if (key == KeyEvent.VK_SPACE) {
+                if (showStartPage || showInstructions) {
+                    startGame(); // Start the game on first space bar press
+                } else if (!gameOver) {
+                    velocityY = -9; // Make the bird jump
+                }
             }
         }
     }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        inputQueue.offer(InputQueue.keyPressed(e.getKeyCode()));
+    }
     @Override
     public void keyTyped(KeyEvent e) {}
 
@@ -297,5 +533,6 @@ public class FlappyBird extends JPanel implements ActionListener, KeyListener {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.pack();
         frame.setVisible(true);
+        game.start();
     }
 }
@@ -0,0 +1,251 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// headless neuroevolution for FlappyBird: a whole population flies one seeded course per generation
+// as Flocks (structure of arrays), split into slices that run on their own cores. the course is the
+// PipeCourse FlappyBird plays, every slice generates its own copy from the seed so slices never talk
+// usage: java FlappyTrainer [population=4096] [generations=50] [controller=nn|rule] [maxTicks=10000]
+//                           [threads=<cores>] [seed=<random>]
+public class FlappyTrainer {
+    // FlappyBird's board, bird and pipes
+    static final int BOARD_WIDTH = 360;
+    static final int BOARD_HEIGHT = 640;
+    static final int BIRD_X = BOARD_WIDTH / 8;
+    static final int BIRD_Y = BOARD_WIDTH / 2;
+    static final int BIRD_WIDTH = 34;
+    static final int BIRD_HEIGHT = 24;
+    static final int PIPE_WIDTH = 64;
+    static final int PIPE_HEIGHT = 512;
+    static final int OPENING = BOARD_HEIGHT / 4;
+    static final int VELOCITY_X = -4;
+    static final int PIPE_INTERVAL_TICKS = 90;
+
+    static final int SLICE = 1024; // birds per Flock, one slice is one task
+    static final float ELITE = 0.1f; // share of a generation that survives unchanged
+    static final float MUTATION = 0.3f;
+
+    // decides who flaps this tick. the next pair's opening runs from gapTop to gapBottom and its left
+    // edge is dx pixels ahead of the birds. genomes holds every bird's parameters, GENES of them each,
+    // bird i of the flock starting at (first + i) * GENES
+    interface Controller {
+        int genes();
+
+        void decide(Flock flock, float[] genomes, int first, int gapTop, int gapBottom, int dx, int[] flap);
+    }
+
+    // flaps when the bird is falling below the middle of the next opening, the genes are ignored
+    static final Controller RULE = new Controller() {
+        public int genes() {
+            return 0;
+        }
+
+        public void decide(Flock flock, float[] genomes, int first, int gapTop, int gapBottom, int dx, int[] flap) {
+            int target = gapBottom - flock.height - OPENING / 4;
+            for (int i = 0; i < flock.count; i++) {
+                flap[i] = flock.y[i] > target && flock.velocityY[i] >= 0 ? 1 : 0;
+            }
+        }
+    };
+
+    // 3 inputs (height above the opening's bottom, vertical speed, distance to the pair), HIDDEN tanh
+    // neurons and one output that flaps when it's positive
+    static final int HIDDEN = 6;
+    static final Controller NN = new Controller() {
+        public int genes() {
+            return HIDDEN * 4 + HIDDEN + 1;
+        }
+
+        public void decide(Flock flock, float[] genomes, int first, int gapTop, int gapBottom, int dx, int[] flap) {
+            int genes = genes();
+            float distance = dx / (float) BOARD_WIDTH;
+            for (int i = 0; i < flock.count; i++) {
+                int g = (first + i) * genes;
+                float above = (gapBottom - flock.y[i]) / (float) OPENING;
+                float speed = flock.velocityY[i] / 10f;
+                float out = genomes[g + HIDDEN * 4 + HIDDEN];
+                for (int h = 0; h < HIDDEN; h++) {
+                    int w = g + h * 4;
+                    float sum = genomes[w] * above + genomes[w + 1] * speed + genomes[w + 2] * distance + genomes[w + 3];
+                    out += genomes[g + HIDDEN * 4 + h] * tanh(sum);
+                }
+                flap[i] = out > 0 ? 1 : 0;
+            }
+        }
+    };
+
+    // a rational approximation of tanh that's good to about 2%, Math.tanh was most of the nn's time
+    static float tanh(float x) {
+        x = Math.max(-3f, Math.min(3f, x));
+        float x2 = x * x;
+        return x * (27 + x2) / (27 + 9 * x2);
+    }
+
+    final int population;
+    final Controller controller;
+    final long maxTicks;
+    final float[] genomes;
+    final long[] fitness; // ticks survived in the last generation
+
+    FlappyTrainer(int population, Controller controller, long maxTicks, long seed) {
+        this.population = population;
+        this.controller = controller;
+        this.maxTicks = maxTicks;
+        genomes = new float[population * controller.genes()];
+        fitness = new long[population];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < genomes.length; i++) {
+            genomes[i] = (float) random.nextGaussian();
+        }
+    }
+
+    static final Reachability REACHABILITY = new Reachability(BOARD_WIDTH, BOARD_HEIGHT, BIRD_X, BIRD_WIDTH,
+            BIRD_HEIGHT, PIPE_WIDTH, -VELOCITY_X, OPENING, PIPE_INTERVAL_TICKS, PipeCourse.minGapTop(0, PIPE_HEIGHT),
+            PipeCourse.maxGapTop(0, PIPE_HEIGHT));
+
+    // the game's course for seed
+    static PipeCourse course(long seed) {
+        return new PipeCourse(seed, 0, PIPE_HEIGHT, OPENING, PIPE_INTERVAL_TICKS, REACHABILITY);
+    }
+
+    // left edge of pair k after tick t, pair k is placed on tick (k + 1) * PIPE_INTERVAL_TICKS and moves that same tick
+    static int pipeX(int k, long tick) {
+        return BOARD_WIDTH + VELOCITY_X * (int) (tick - (long) (k + 1) * PIPE_INTERVAL_TICKS + 1);
+    }
+
+    // flies birds first..first + flock.count until they're all dead or maxTicks, their fitness is the
+    // number of ticks each stayed alive
+    void fly(Flock flock, int first, PipeCourse course) {
+        int[] flap = new int[flock.count];
+        long[] alive = new long[flock.count];
+        flock.reset(BIRD_Y);
+        int next = 0; // first pair the birds haven't cleared
+        for (long tick = 1; tick <= maxTicks; tick++) {
+            // the pair ahead of the birds, it hasn't spawned yet while next == spawned
+            int spawned = (int) (tick / PIPE_INTERVAL_TICKS); // pairs on the board once this tick's is placed
+            int x = next < spawned ? pipeX(next, tick - 1) : BOARD_WIDTH;
+            int gapTop = course.gapTop(next);
+            controller.decide(flock, genomes, first, gapTop, gapTop + OPENING, x - BIRD_X, flap);
+
+            flock.step(flap);
+            if (next < spawned) {
+                int pipeX = pipeX(next, tick);
+                flock.collide(pipeX, PIPE_WIDTH, gapTop, gapTop + OPENING);
+                if (pipeX + PIPE_WIDTH < BIRD_X) {
+                    next++;
+                }
+            }
+
+            int living = 0;
+            for (int i = 0; i < flock.count; i++) {
+                int up = flock.dead[i] ^ 1;
+                alive[i] += up;
+                living += up;
+            }
+            if (living == 0) {
+                break;
+            }
+        }
+        for (int i = 0; i < flock.count; i++) {
+            fitness[first + i] = alive[i];
+        }
+    }
+
+    // one generation on pool, every slice of SLICE birds is one task
+    void evaluate(ForkJoinPool pool, long courseSeed) throws Exception {
+        int slices = (population + SLICE - 1) / SLICE;
+        pool.submit(() -> IntStream.range(0, slices).parallel().forEach(s -> {
+            int first = s * SLICE;
+            int count = Math.min(SLICE, population - first);
+            fly(new Flock(count, BIRD_X, BIRD_WIDTH, BIRD_HEIGHT), first, course(courseSeed));
+        })).get();
+    }
+
+    // the fittest ELITE share is kept, everyone else becomes a mutated copy of one of them
+    void breed(SplittableRandom random) {
+        int genes = controller.genes();
+        if (genes == 0) {
+            return;
+        }
+        Integer[] order = new Integer[population];
+        for (int i = 0; i < population; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(fitness[b], fitness[a]));
+        int elites = Math.max(1, (int) (population * ELITE));
+        float[] next = new float[genomes.length];
+        for (int i = 0; i < population; i++) {
+            int parent = order[i < elites ? i : random.nextInt(elites)];
+            System.arraycopy(genomes, parent * genes, next, i * genes, genes);
+            if (i >= elites) {
+                for (int g = i * genes; g < (i + 1) * genes; g++) {
+                    next[g] += (float) random.nextGaussian() * MUTATION;
+                }
+            }
+        }
+        System.arraycopy(next, 0, genomes, 0, genomes.length);
+    }
+
+    // pipes passed by a bird that lived ticks ticks
+    static long pipesPassed(long ticks) {
+        long passed = 0;
+        for (int k = 0; k <= ticks / PIPE_INTERVAL_TICKS; k++) {
+            if ((long) (k + 1) * PIPE_INTERVAL_TICKS <= ticks && pipeX(k, ticks) + PIPE_WIDTH < BIRD_X) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int population = (int) arg(args, "population", 4096);
+        int generations = (int) arg(args, "generations", 50);
+        Controller controller = arg(args, "controller", "nn").equals("rule") ? RULE : NN;
+        long maxTicks = arg(args, "maxTicks", 10_000);
+        int threads = (int) arg(args, "threads", Runtime.getRuntime().availableProcessors());
+        long seed = arg(args, "seed", System.nanoTime());
+
+        FlappyTrainer trainer = new FlappyTrainer(population, controller, maxTicks, seed);
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long birdTicks = 0;
+        long start = System.nanoTime();
+        try {
+            for (int gen = 0; gen < generations; gen++) {
+                // a new course every generation, so nobody learns one course by heart
+                trainer.evaluate(pool, seed + gen * 0x9E3779B97F4A7C15L);
+                long best = 0;
+                long total = 0;
+                for (long f : trainer.fitness) {
+                    best = Math.max(best, f);
+                    total += f;
+                }
+                birdTicks += total;
+                System.out.printf("gen %4d  best %,7d ticks (%,d pipes)  mean %,9.1f ticks%n", gen, best,
+                        pipesPassed(best), (double) total / population);
+                trainer.breed(random);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("population %,d on %d threads (seed %d), %s controller%n", population, threads, seed,
+                controller == RULE ? "rule" : "nn");
+        System.out.printf("speed      %.2f generations/s, %,.0f bird ticks/s (%.2f s)%n", generations / seconds,
+                birdTicks / seconds, seconds);
+    }
+
+    static String arg(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return fallback;
+    }
+
+    static long arg(String[] args, String name, long fallback) {
+        return Long.parseLong(arg(args, name, String.valueOf(fallback)));
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+// many birds flying the same course, kept as parallel arrays (structure of arrays) so a whole flock
+// can be moved and tested against a pipe pair in tight loops. every bird shares the same x, like the
+// game's bird, so only their heights differ
+class Flock {
+    // FlappyBird's bird physics
+    static final int GRAVITY = 1;
+    static final int JUMP_VELOCITY = -9;
+
+    final int x;
+    final int width;
+    final int height;
+    int boardHeight = 640; // falling past this is death, like in FlappyBird.move()
+    final int[] y;
+    final int[] velocityY;
+    final int[] dead; // 0 alive, 1 hit something, an int so the collision loop stays branch free
+    int count;
+
+    Flock(int capacity, int x, int width, int height) {
+        this.x = x;
+        this.width = width;
+        this.height = height;
+        y = new int[capacity];
+        velocityY = new int[capacity];
+        dead = new int[capacity];
+        count = capacity;
+    }
+
+    // one tick of FlappyBird.move()'s bird physics for the whole flock. flap[i] != 0 is the space bar
+    // pressed since the last tick. dead birds keep falling, it's cheaper than skipping them
+    void step(int[] flap) {
+        for (int i = 0; i < count; i++) {
+            int vy = (flap[i] != 0 ? JUMP_VELOCITY : velocityY[i]) + GRAVITY;
+            velocityY[i] = vy;
+            y[i] = Math.max(y[i] + vy, 0);
+            dead[i] |= (boardHeight - y[i]) >>> 31;
+        }
+    }
+
+    // everyone back at startY, falling from rest and alive
+    void reset(int startY) {
+        Arrays.fill(y, 0, count, startY);
+        Arrays.fill(velocityY, 0, count, 0);
+        Arrays.fill(dead, 0, count, 0);
+    }
+
+    int alive() {
+        int dead = 0;
+        for (int i = 0; i < count; i++) {
+            dead += this.dead[i];
+        }
+        return count - dead;
+    }
+
+    // true when a pipe spanning pipeX..pipeX + pipeWidth is in the birds' column
+    boolean overlaps(int pipeX, int pipeWidth) {
+        return x < pipeX + pipeWidth && x + width > pipeX;
+    }
+
+    // every bird against one pair whose opening runs from gapTop to gapBottom. whether the pair is in
+    // their column is decided once, then each bird is one subtract-or-shift with no branch, which
+    // hotspot's superword pass can turn into simd instructions
+    void collide(int pipeX, int pipeWidth, int gapTop, int gapBottom) {
+        if (!overlaps(pipeX, pipeWidth)) {
+            return;
+        }
+        int gapBottomLessHeight = gapBottom - height;
+        for (int i = 0; i < count; i++) {
+            // sign bit set when the bird pokes above the opening or below it
+            dead[i] |= ((y[i] - gapTop) | (gapBottomLessHeight - y[i])) >>> 31;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Arrays;
+
+// the pipe pairs of one game, worked out from a seed and the pair's index instead of drawn from
+// Math.random() as they spawn. pair k spawns on tick (k + 1) * intervalTicks and its height is a hash
+// of (seed, k), so the same seed gives the same course whether it's played at 60 ticks a second or
+// flown headless as fast as the cpu goes, and any pair can be looked up without generating the ones
+// before it. heights are generated a chunk of CHUNK pairs at a time and the last few chunks are
+// cached. with a Reachability every pair is checked against the one before it as it's generated and
+// moved to the nearest height the bird can reach if it can't, which makes each pair depend on the last:
+// then the last height of every chunk generated so far is kept, so a chunk only needs the one before
+// it. not thread safe: threads flying the same course each make their own, it's cheap
+class PipeCourse {
+    static final int CHUNK = 64; // pairs generated at once
+    static final int CACHED_CHUNKS = 4; // a power of two, chunk c lives in slot c & (CACHED_CHUNKS - 1)
+
+    final long seed;
+    final int pipeY; // top pipe's y before the random shift, like FlappyBird.pipeY
+    final int pipeHeight;
+    final int opening; // gap between the top and bottom pipe
+    final int intervalTicks; // ticks between two pairs
+    final Reachability reachability; // null for the raw hashed heights
+
+    private final int[][] chunks = new int[CACHED_CHUNKS][CHUNK];
+    private final long[] cachedChunk = new long[CACHED_CHUNKS]; // which chunk each slot holds
+    private int[] lastTopY = new int[16]; // the last height of chunk c, with a reachability
+    private int chunksChained = 0; // chunks whose last height is known
+    long chunksGenerated = 0;
+    long pairsRepaired = 0;
+
+    PipeCourse(long seed, int pipeY, int pipeHeight, int opening, int intervalTicks, Reachability reachability) {
+        this.seed = seed;
+        this.pipeY = pipeY;
+        this.pipeHeight = pipeHeight;
+        this.opening = opening;
+        this.intervalTicks = intervalTicks;
+        this.reachability = reachability;
+        Arrays.fill(cachedChunk, -1);
+    }
+
+    // the lowest and highest gap a pair can get, what a Reachability for this course has to cover
+    static int minGapTop(int pipeY, int pipeHeight) {
+        return pipeY - pipeHeight / 4 - pipeHeight / 2 + pipeHeight;
+    }
+
+    static int maxGapTop(int pipeY, int pipeHeight) {
+        return pipeY - pipeHeight / 4 + pipeHeight;
+    }
+
+    // the pair spawning on tick, or -1 on the ticks in between
+    int pairAt(long tick) {
+        return tick > 0 && tick % intervalTicks == 0 ? (int) (tick / intervalTicks - 1) : -1;
+    }
+
+    long spawnTick(int pair) {
+        return (long) (pair + 1) * intervalTicks;
+    }
+
+    // y of pair's top pipe, the bottom one starts at topY + pipeHeight + opening
+    int topY(int pair) {
+        long chunk = pair / CHUNK;
+        int slot = (int) (chunk & (CACHED_CHUNKS - 1));
+        if (cachedChunk[slot] != chunk) {
+            // repairs chain from one chunk to the next, catch up on the ones in between first
+            while (reachability != null && chunksChained < chunk) {
+                load(chunksChained);
+            }
+            load(chunk);
+        }
+        return chunks[slot][pair % CHUNK];
+    }
+
+    // where the opening of pair starts, the bottom of its top pipe
+    int gapTop(int pair) {
+        return topY(pair) + pipeHeight;
+    }
+
+    // how hard pair is to reach from the one before it, 0 to 100, see Reachability.difficulty()
+    int difficulty(int pair) {
+        if (pair == 0 || reachability == null) {
+            return 0; // the first pair is a long free flight away
+        }
+        return reachability.difficulty(gapTop(pair - 1), gapTop(pair));
+    }
+
+    private void load(long chunk) {
+        int slot = (int) (chunk & (CACHED_CHUNKS - 1));
+        int[] into = chunks[slot];
+        generate(chunk, into);
+        cachedChunk[slot] = chunk;
+        if (reachability != null && chunk == chunksChained) {
+            if (chunksChained == lastTopY.length) {
+                lastTopY = Arrays.copyOf(lastTopY, chunksChained * 2);
+            }
+            lastTopY[chunksChained++] = into[CHUNK - 1];
+        }
+    }
+
+    private void generate(long chunk, int[] into) {
+        chunksGenerated++;
+        for (int i = 0; i < CHUNK; i++) {
+            // the same shift placePipes() used to get from Math.random()
+            int topY = (int) (pipeY - pipeHeight / 4 - unit(seed, chunk * CHUNK + i) * (pipeHeight / 2));
+            if (reachability != null && (chunk > 0 || i > 0)) {
+                topY = reachable(i > 0 ? into[i - 1] : lastTopY[(int) chunk - 1], topY);
+            }
+            into[i] = topY;
+        }
+    }
+
+    // topY, or the height nearest to it the bird can get to from a pair at previous
+    private int reachable(int previous, int topY) {
+        int from = previous + pipeHeight;
+        if (reachability.passable(from, topY + pipeHeight)) {
+            return topY;
+        }
+        pairsRepaired++;
+        int highest = maxGapTop(pipeY, pipeHeight) - pipeHeight;
+        int lowest = minGapTop(pipeY, pipeHeight) - pipeHeight;
+        for (int d = 1; d <= highest - lowest; d++) {
+            // towards the last pair first, that's the side that's closer to where the bird is
+            int toward = topY + (previous > topY ? d : -d);
+            int away = topY - (previous > topY ? d : -d);
+            if (toward >= lowest && toward <= highest && reachability.passable(from, toward + pipeHeight)) {
+                return toward;
+            }
+            if (away >= lowest && away <= highest && reachability.passable(from, away + pipeHeight)) {
+                return away;
+            }
+        }
+        return topY; // nothing is reachable from there, the course can't be fixed by moving this pair
+    }
+
+    // a double in [0, 1) from (seed, index), splitmix64's finalizer over the two mixed together
+    static double unit(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.function.Supplier;
+
+// the pipes on screen, oldest first, in a ring of pooled Pipe objects. pipes only ever enter on the
+// right and leave on the left, so spawning writes the slot after the newest and retiring just moves
+// past the oldest: both O(1), nothing is allocated once the ring has warmed up, and a tick only ever
+// visits the few pipes that are still on screen. the ring doubles if it ever fills up
+class PipeRing {
+    private FlappyBird.Pipe[] ring;
+    private final Supplier<FlappyBird.Pipe> factory;
+    private int head = 0; // slot of the oldest pipe
+    private int size = 0;
+
+    PipeRing(int capacity, Supplier<FlappyBird.Pipe> factory) {
+        this.ring = new FlappyBird.Pipe[Integer.highestOneBit(Math.max(2, capacity - 1)) << 1];
+        this.factory = factory;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // i = 0 is the oldest, leftmost pipe
+    FlappyBird.Pipe get(int i) {
+        return ring[(head + i) & (ring.length - 1)];
+    }
+
+    // the pooled pipe for the newest slot, the caller resets every field it uses
+    FlappyBird.Pipe add() {
+        if (size == ring.length) {
+            grow();
+        }
+        int slot = (head + size) & (ring.length - 1);
+        if (ring[slot] == null) {
+            ring[slot] = factory.get();
+        }
+        size++;
+        return ring[slot];
+    }
+
+    // drops the oldest pipe, its object stays in the ring to be reused
+    void retire() {
+        head = (head + 1) & (ring.length - 1);
+        size--;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        FlappyBird.Pipe[] bigger = new FlappyBird.Pipe[ring.length * 2];
+        for (int i = 0; i < ring.length; i++) {
+            bigger[i] = get(i);
+        }
+        ring = bigger;
+        head = 0;
+    }
+}
@@ -0,0 +1,293 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// can the bird get from one gap to the next? a breadth first search over every (y, velocityY) the bird
+// can be in, one tick at a time with FlappyBird.move()'s physics: a flap sets velocityY to JUMP_VELOCITY,
+// then gravity adds to it and y moves by it, clamped at 0. the states of one velocity are a bitset over
+// y, so a tick is a shift and an or per velocity, and the pipes in the bird's column are a mask.
+// the search meets in the middle, on the tick before the next pair reaches the bird: forwards from
+// everywhere in the last gap (one search per last gap), backwards from everywhere that makes it through
+// the next gap (one per next gap), and the jump is possible when the two sets share a state. both are
+// memoized and a last gap's answers are filled in for every next gap at once, so after the first
+// question from a gap it's a table lookup. everything is filled on demand and can be shared by threads
+class Reachability {
+    static final int IMPOSSIBLE = -1;
+
+    final int boardHeight;
+    final int birdHeight;
+    final int opening;
+    final int intervalTicks;
+    final int minGapTop; // the gaps the table covers, gap tops outside this are clamped into it
+    final int maxGapTop;
+
+    // ticks after a pipe spawns that it's in the bird's column, the first and the last
+    final int windowStart;
+    final int windowEnd;
+
+    private final int minVelocity = Flock.JUMP_VELOCITY + Flock.GRAVITY;
+    private final int velocities; // minVelocity.. as fast as a fall from the top of the board gets
+    private final int words;
+
+    // rows[from][to] is IMPOSSIBLE or how hard the jump from gap from to gap to is, both less minGapTop
+    private final AtomicReferenceArray<byte[]> rows;
+    // where a bird can be the tick before a gap reaches it and still make it through, and how many states that is
+    private final AtomicReferenceArray<long[][]> entries;
+    private final int[] entrySizes;
+    long rowsSolved = 0;
+
+    Reachability(int boardWidth, int boardHeight, int birdX, int birdWidth, int birdHeight, int pipeWidth,
+            int pipeSpeed, int opening, int intervalTicks, int minGapTop, int maxGapTop) {
+        this.boardHeight = boardHeight;
+        this.birdHeight = birdHeight;
+        this.opening = opening;
+        this.intervalTicks = intervalTicks;
+        this.minGapTop = minGapTop;
+        this.maxGapTop = maxGapTop;
+        // a pipe spawns at boardWidth and moves on its first tick, so s ticks in its left edge is at
+        // boardWidth - pipeSpeed * s. it's in the bird's column while x < birdX + birdWidth and x + pipeWidth > birdX
+        int start = 1;
+        while (boardWidth - pipeSpeed * start >= birdX + birdWidth) {
+            start++;
+        }
+        int end = start;
+        while (boardWidth - pipeSpeed * (end + 1) + pipeWidth > birdX) {
+            end++;
+        }
+        windowStart = start;
+        windowEnd = end;
+
+        int maxVelocity = 0;
+        for (int fallen = 0; fallen <= boardHeight; fallen += maxVelocity) {
+            maxVelocity += Flock.GRAVITY;
+        }
+        velocities = maxVelocity - minVelocity + 1;
+        words = (boardHeight >> 6) + 1;
+        rows = new AtomicReferenceArray<>(maxGapTop - minGapTop + 1);
+        entries = new AtomicReferenceArray<>(maxGapTop - minGapTop + 1);
+        entrySizes = new int[maxGapTop - minGapTop + 1];
+    }
+
+    boolean passable(int fromGapTop, int toGapTop) {
+        return difficulty(fromGapTop, toGapTop) != IMPOSSIBLE;
+    }
+
+    // 0 to 100: the share of the ways into the next gap that the last one rules out, or IMPOSSIBLE
+    int difficulty(int fromGapTop, int toGapTop) {
+        return row(clamp(fromGapTop) - minGapTop)[clamp(toGapTop) - minGapTop];
+    }
+
+    // fills the whole table, a few hundred ms. the game does it on a background thread at start up so
+    // generating a course never stalls a tick
+    void solveAll() {
+        for (int from = 0; from <= maxGapTop - minGapTop; from++) {
+            row(from);
+        }
+    }
+
+    private int clamp(int gapTop) {
+        return Math.max(minGapTop, Math.min(maxGapTop, gapTop));
+    }
+
+    // two threads may both solve a row or an entry, they get the same answer
+    private byte[] row(int from) {
+        byte[] row = rows.get(from);
+        if (row == null) {
+            row = solve(from + minGapTop);
+            rows.set(from, row);
+        }
+        return row;
+    }
+
+    private long[][] entry(int to) {
+        long[][] entry = entries.get(to);
+        if (entry == null) {
+            entry = solveEntry(to + minGapTop);
+            entrySizes[to] = count(entry);
+            entries.set(to, entry);
+        }
+        return entry;
+    }
+
+    // every bird that's in the last gap when it reaches the bird, at any speed, flown to the tick before
+    // the next pair does, then met with each next gap's entry
+    private byte[] solve(int fromGapTop) {
+        long[][] states = new long[velocities][words];
+        for (long[] row : states) {
+            fill(row, fromGapTop, fromGapTop + opening - birdHeight);
+        }
+        long[][] next = new long[velocities][words];
+        for (int tick = windowStart + 1; tick < windowStart + intervalTicks; tick++) {
+            boolean inGap = tick <= windowEnd;
+            step(states, next, inGap ? fromGapTop : 0, inGap ? fromGapTop + opening - birdHeight : boardHeight);
+            long[][] swap = states;
+            states = next;
+            next = swap;
+        }
+
+        byte[] row = new byte[maxGapTop - minGapTop + 1];
+        for (int to = 0; to < row.length; to++) {
+            long[][] entry = entry(to);
+            int shared = 0;
+            for (int v = 0; v < velocities; v++) {
+                for (int i = 0; i < words; i++) {
+                    shared += Long.bitCount(states[v][i] & entry[v][i]);
+                }
+            }
+            row[to] = shared == 0 ? IMPOSSIBLE : (byte) (100 - 100L * shared / entrySizes[to]);
+        }
+        synchronized (this) {
+            rowsSolved++;
+        }
+        return row;
+    }
+
+    // every state that's still alive on the last tick of the gap at gapTop, followed back to the tick
+    // before the pair reaches the bird
+    private long[][] solveEntry(int gapTop) {
+        int lo = gapTop;
+        int hi = gapTop + opening - birdHeight;
+        long[][] states = new long[velocities][words];
+        for (long[] row : states) {
+            fill(row, lo, hi);
+        }
+        long[][] previous = new long[velocities][words];
+        long[] flapped = new long[words];
+        for (int tick = windowEnd; tick >= windowStart; tick--) {
+            // the tick before the window they can be anywhere on the board
+            boolean inGap = tick > windowStart;
+            stepBack(states, previous, flapped, inGap ? lo : 0, inGap ? hi : boardHeight);
+            long[][] swap = states;
+            states = previous;
+            previous = swap;
+        }
+        return states;
+    }
+
+    // one tick from states into next, keeping the birds that end up between lo and hi
+    private void step(long[][] states, long[][] next, int lo, int hi) {
+        for (long[] row : next) {
+            Arrays.fill(row, 0);
+        }
+        for (int v = 0; v < velocities; v++) {
+            long[] row = states[v];
+            // not flapping: gravity, then move
+            int velocity = v + minVelocity + Flock.GRAVITY;
+            if (velocity - minVelocity < velocities) {
+                shiftOr(row, velocity, next[velocity - minVelocity]);
+            }
+            // flapping: everyone ends up going up at minVelocity
+            shiftOr(row, minVelocity, next[0]);
+        }
+        for (long[] row : next) {
+            and(row, lo, hi);
+        }
+    }
+
+    // one tick backwards from states into previous: the states between lo and hi that step() takes into states
+    private void stepBack(long[][] states, long[][] previous, long[] flapped, int lo, int hi) {
+        for (long[] row : previous) {
+            Arrays.fill(row, 0);
+        }
+        // not flapping: they came from velocity - gravity, velocity pixels back
+        for (int v = Flock.GRAVITY; v < velocities; v++) {
+            unshiftOr(states[v], v + minVelocity, previous[v - Flock.GRAVITY]);
+        }
+        // flapping: from any velocity
+        Arrays.fill(flapped, 0);
+        unshiftOr(states[0], minVelocity, flapped);
+        for (long[] row : previous) {
+            for (int i = 0; i < words; i++) {
+                row[i] |= flapped[i];
+            }
+            and(row, lo, hi);
+        }
+    }
+
+    // ors src moved by by pixels (negative is up) into dst, what would go above the board stays at 0
+    private void shiftOr(long[] src, int by, long[] dst) {
+        if (by >= 0) {
+            down(src, by, dst);
+            return;
+        }
+        boolean clamped = false;
+        for (int i = 0; i <= (-by - 1) >> 6; i++) {
+            clamped |= (src[i] & mask(i, 0, -by - 1)) != 0;
+        }
+        up(src, -by, dst);
+        if (clamped) {
+            dst[0] |= 1; // y = max(y + velocityY, 0)
+        }
+    }
+
+    // the other way round: ors into dst every y that moving by by pixels takes into src, with the whole
+    // stretch that gets clamped to 0 when src has y = 0
+    private void unshiftOr(long[] src, int by, long[] dst) {
+        if (by >= 0) {
+            up(src, by, dst);
+            return;
+        }
+        down(src, -by, dst);
+        if ((src[0] & 1) != 0) {
+            for (int i = 0; i <= -by >> 6; i++) {
+                dst[i] |= mask(i, 0, -by);
+            }
+        }
+    }
+
+    // bit y of src to bit y + by of dst, dropping what falls off the end
+    private static void down(long[] src, int by, long[] dst) {
+        int words = by >>> 6, bits = by & 63;
+        for (int i = dst.length - 1; i >= words; i--) {
+            long word = src[i - words] << bits;
+            if (bits != 0 && i - words - 1 >= 0) {
+                word |= src[i - words - 1] >>> (64 - bits);
+            }
+            dst[i] |= word;
+        }
+    }
+
+    // bit y of src to bit y - by of dst, dropping what goes past 0
+    private static void up(long[] src, int by, long[] dst) {
+        int words = by >>> 6, bits = by & 63;
+        for (int i = 0; i + words < src.length; i++) {
+            long word = src[i + words] >>> bits;
+            if (bits != 0 && i + words + 1 < src.length) {
+                word |= src[i + words + 1] << (64 - bits);
+            }
+            dst[i] |= word;
+        }
+    }
+
+    private static int count(long[][] states) {
+        int count = 0;
+        for (long[] row : states) {
+            for (long word : row) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    // keeps the bits from lo to hi, never past the bottom of the board
+    private void and(long[] row, int lo, int hi) {
+        for (int i = 0; i < row.length; i++) {
+            row[i] &= mask(i, lo, Math.min(hi, boardHeight));
+        }
+    }
+
+    private void fill(long[] row, int lo, int hi) {
+        for (int i = 0; i < row.length; i++) {
+            row[i] = mask(i, lo, Math.min(hi, boardHeight));
+        }
+    }
+
+    // bits lo..hi of word i
+    private static long mask(int i, int lo, int hi) {
+        int first = Math.max(lo - i * 64, 0);
+        int last = Math.min(hi - i * 64, 63);
+        if (first > last) {
+            return 0;
+        }
+        return (-1L >>> (63 - last)) & (-1L << first);
+    }
+}
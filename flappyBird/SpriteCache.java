@@ -0,0 +1,69 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.util.Arrays;
+
+// every image the game draws, scaled once to the size it's drawn at and in the screen's own pixel
+// format (a compatible image), so drawing one is a straight copy java2d can keep in video memory
+// instead of scaling and converting a png every frame. the originals are kept, and when the window
+// turns up on a display with another format update() rebuilds every sprite for it
+class SpriteCache {
+    private Image[] sources = new Image[8];
+    private int[] sizes = new int[16]; // width, height
+    private int[] transparencies = new int[8];
+    private BufferedImage[] sprites = new BufferedImage[8];
+    private int count = 0;
+    private GraphicsConfiguration config; // null until there's a screen, then plain BufferedImages are used
+    private ColorModel colorModel;
+    int rebuilds = 0;
+
+    // a sprite of source at width x height, transparency is one of Transparency's, returns its id
+    int add(Image source, int width, int height, int transparency) {
+        if (count == sources.length) {
+            sources = Arrays.copyOf(sources, count * 2);
+            sizes = Arrays.copyOf(sizes, count * 4);
+            transparencies = Arrays.copyOf(transparencies, count * 2);
+            sprites = Arrays.copyOf(sprites, count * 2);
+        }
+        sources[count] = source;
+        sizes[count * 2] = width;
+        sizes[count * 2 + 1] = height;
+        transparencies[count] = transparency;
+        sprites[count] = build(count);
+        return count++;
+    }
+
+    BufferedImage get(int sprite) {
+        return sprites[sprite];
+    }
+
+    // called with the component's configuration before drawing, true when the sprites were rebuilt and
+    // anything holding on to one needs the new one
+    boolean update(GraphicsConfiguration config) {
+        if (config == null || (config == this.config && config.getColorModel().equals(colorModel))) {
+            return false;
+        }
+        this.config = config;
+        colorModel = config.getColorModel();
+        for (int i = 0; i < count; i++) {
+            sprites[i] = build(i);
+        }
+        rebuilds++;
+        return true;
+    }
+
+    private BufferedImage build(int i) {
+        int width = sizes[i * 2], height = sizes[i * 2 + 1];
+        BufferedImage sprite = config != null
+                ? config.createCompatibleImage(width, height, transparencies[i])
+                : new BufferedImage(width, height, transparencies[i] == Transparency.OPAQUE
+                        ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        g.drawImage(sources[i], 0, 0, width, height, null);
+        g.dispose();
+        return sprite;
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.BitSet;
+
+// the whole wave as one block: every alien has a fixed slot inside the formation (structure of
+// arrays, slot = column * rows + row like createAliens always filled it) and the formation has one
+// position. moving, bouncing and stepping down only change that position, and the bounding box of
+// the living aliens is kept up to date as they die, so a tick never has to visit every alien
+class AlienFormation {
+    final int columns;
+    final int rows;
+    final int alienWidth;
+    final int alienHeight;
+
+    final int[] x; // slot position inside the formation
+    final int[] y;
+    final int[] img; // index into alienImgArray
+    final BitSet alive;
+    private final int[] columnAlive;
+    private final int[] rowAlive;
+
+    int offsetX;
+    int offsetY;
+    int prevOffsetX; // where the formation was before the last move, for interpolated drawing
+    int prevOffsetY;
+    int count;
+
+    // living aliens sit in columns minColumn..maxColumn and rows 0..maxRow
+    int minColumn;
+    int maxColumn;
+    int maxRow;
+
+    long tests; // slots hit() has looked at, for the stress counters
+
+    AlienFormation(int columns, int rows, int alienWidth, int alienHeight, int offsetX, int offsetY) {
+        this.columns = columns;
+        this.rows = rows;
+        this.alienWidth = alienWidth;
+        this.alienHeight = alienHeight;
+        this.offsetX = this.prevOffsetX = offsetX;
+        this.offsetY = this.prevOffsetY = offsetY;
+
+        int slots = columns * rows;
+        x = new int[slots];
+        y = new int[slots];
+        img = new int[slots];
+        alive = new BitSet(slots);
+        alive.set(0, slots);
+        columnAlive = new int[columns];
+        rowAlive = new int[rows];
+        for (int c = 0; c < columns; c++) {
+            for (int r = 0; r < rows; r++) {
+                int i = c * rows + r;
+                x[i] = c * alienWidth;
+                y[i] = r * alienHeight;
+            }
+            columnAlive[c] = rows;
+        }
+        for (int r = 0; r < rows; r++) {
+            rowAlive[r] = columns;
+        }
+        count = slots;
+        minColumn = 0;
+        maxColumn = columns - 1;
+        maxRow = rows - 1;
+    }
+
+    int left() {
+        return offsetX + minColumn * alienWidth;
+    }
+
+    int right() {
+        return offsetX + (maxColumn + 1) * alienWidth;
+    }
+
+    // top of the lowest living row, the one that reaches the ship first
+    int lowestY() {
+        return offsetY + maxRow * alienHeight;
+    }
+
+    // moves the formation one step and bounces it off the walls, the velocity to use next tick is returned
+    int move(int velocityX, int boardWidth) {
+        prevOffsetX = offsetX;
+        prevOffsetY = offsetY;
+        offsetX += velocityX;
+        if (count > 0 && (right() >= boardWidth || left() <= 0)) {
+            velocityX *= -1;
+            offsetX += velocityX * 2;
+            offsetY += alienHeight; //alien mela po one line
+        }
+        return velocityX;
+    }
+
+    // kills the first living alien the bullet overlaps, checking slots in the same order the old
+    // per alien loop did. a bullet is never bigger than an alien so it spans at most 2x2 slots
+    int hit(int bulletX, int bulletY, int bulletWidth, int bulletHeight) {
+        int localX = bulletX - offsetX;
+        int localY = bulletY - offsetY;
+        int fromColumn = Math.max(minColumn, Math.floorDiv(localX, alienWidth));
+        int toColumn = Math.min(maxColumn, Math.floorDiv(localX + bulletWidth - 1, alienWidth));
+        int fromRow = Math.max(0, Math.floorDiv(localY, alienHeight));
+        int toRow = Math.min(maxRow, Math.floorDiv(localY + bulletHeight - 1, alienHeight));
+        for (int c = fromColumn; c <= toColumn; c++) {
+            for (int r = fromRow; r <= toRow; r++) {
+                int i = c * rows + r;
+                tests++;
+                if (alive.get(i)) {
+                    kill(i);
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // hit() for a bullet that moved further than its own height this tick and jumped over the rows in
+    // between: everything from where it is now down to the bottom of where it was is checked, lowest row
+    // first since that's the one the bullet reached first. at the normal tile size bullets never move that
+    // far, only small stress tiles need it
+    int sweep(int bulletX, int bulletY, int bulletWidth, int sweptHeight) {
+        int localX = bulletX - offsetX;
+        int localY = bulletY - offsetY;
+        int fromColumn = Math.max(minColumn, Math.floorDiv(localX, alienWidth));
+        int toColumn = Math.min(maxColumn, Math.floorDiv(localX + bulletWidth - 1, alienWidth));
+        int fromRow = Math.max(0, Math.floorDiv(localY, alienHeight));
+        int toRow = Math.min(maxRow, Math.floorDiv(localY + sweptHeight - 1, alienHeight));
+        for (int r = toRow; r >= fromRow; r--) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                int i = c * rows + r;
+                tests++;
+                if (alive.get(i)) {
+                    kill(i);
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    void kill(int i) {
+        alive.clear(i);
+        count--;
+        columnAlive[i / rows]--;
+        rowAlive[i % rows]--;
+        while (minColumn <= maxColumn && columnAlive[minColumn] == 0) {
+            minColumn++;
+        }
+        while (maxColumn >= minColumn && columnAlive[maxColumn] == 0) {
+            maxColumn--;
+        }
+        while (maxRow >= 0 && rowAlive[maxRow] == 0) {
+            maxRow--;
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class App {
         frame.pack();
         spaceInvaders.requestFocus();
         frame.setVisible(true);
+        spaceInvaders.start();
 
     }
 }
\ No newline at end of file
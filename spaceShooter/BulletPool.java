@@ -0,0 +1,35 @@
+// fixed capacity bullet store kept as parallel int arrays. live bullets are always packed into
+// [0, count), spawning appends and retiring swaps the last live bullet into the hole, so both are
+// O(1) and nothing is allocated once the pool exists
+class BulletPool {
+    final int[] x;
+    final int[] y;
+    int count = 0;
+
+    BulletPool(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+    }
+
+    // false when the pool is full, the shot is simply dropped
+    boolean spawn(int bulletX, int bulletY) {
+        if (count == x.length) {
+            return false;
+        }
+        x[count] = bulletX;
+        y[count] = bulletY;
+        count++;
+        return true;
+    }
+
+    // the bullet that was last now sits at i, so a loop retiring at i must look at i again
+    void retire(int i) {
+        count--;
+        x[i] = x[count];
+        y[i] = y[count];
+    }
+
+    void clear() {
+        count = 0;
+    }
+}
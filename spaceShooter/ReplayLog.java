@@ -0,0 +1,123 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// one SpaceInvaders game as its seed, its board and the step() input of every tick that had any.
+// feeding the same inputs on the same ticks to a world built from the same seed plays the exact same
+// game, so the recorded end tick and score can be checked by replaying it
+// file: magic, version, seed, tileSize, rows, columns, end tick, score, count, then count x (tick, input)
+class ReplayLog {
+    static final int MAGIC = 0x53495250; // SIRP
+    static final int VERSION = 1;
+
+    final long seed;
+    final int tileSize;
+    final int rows;
+    final int columns;
+
+    private int[] ticks = new int[64];
+    private byte[] inputs = new byte[64];
+    private int size = 0;
+    long endTick = -1; // -1 until the game is over
+    int score;
+
+    ReplayLog(long seed, int tileSize, int rows, int columns) {
+        this.seed = seed;
+        this.tileSize = tileSize;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    // starts recording the game world is about to play, call before its first step
+    static ReplayLog of(SpaceInvadersWorld world) {
+        return new ReplayLog(world.seed, world.tileSize, world.rows, world.columns);
+    }
+
+    // a fresh world at tick 0 of the recorded game
+    SpaceInvadersWorld world() {
+        return new SpaceInvadersWorld(tileSize, rows, columns, seed);
+    }
+
+    // the input given to step() at tick, quiet ticks are not stored
+    void record(long tick, int input) {
+        if (input == 0) {
+            return;
+        }
+        if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            inputs = Arrays.copyOf(inputs, size * 2);
+        }
+        ticks[size] = (int) tick;
+        inputs[size] = (byte) input;
+        size++;
+    }
+
+    void finish(SpaceInvadersWorld world) {
+        endTick = world.ticks;
+        score = world.score;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // steps world once with the recorded input for its tick. cursor is the index of the next recorded
+    // input, the returned one is the cursor for the following step
+    int step(SpaceInvadersWorld world, int cursor) {
+        int input = 0;
+        if (cursor < size && ticks[cursor] == world.ticks) {
+            input = inputs[cursor++];
+        }
+        world.step(input);
+        return cursor;
+    }
+
+    // the first cursor at or after tick, for a world that was fast forwarded some other way
+    int cursor(long tick) {
+        int i = Arrays.binarySearch(ticks, 0, size, (int) tick);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(tileSize);
+            out.writeInt(rows);
+            out.writeInt(columns);
+            out.writeLong(endTick);
+            out.writeInt(score);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(ticks[i]);
+                out.writeByte(inputs[i]);
+            }
+        }
+    }
+
+    static ReplayLog read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(path + " is not a SpaceInvaders replay");
+            }
+            ReplayLog log = new ReplayLog(in.readLong(), in.readInt(), in.readInt(), in.readInt());
+            log.endTick = in.readLong();
+            log.score = in.readInt();
+            int size = in.readInt();
+            log.ticks = new int[Math.max(1, size)];
+            log.inputs = new byte[Math.max(1, size)];
+            for (int i = 0; i < size; i++) {
+                log.ticks[i] = in.readInt();
+                log.inputs[i] = in.readByte();
+            }
+            log.size = size;
+            return log;
+        }
+    }
+}
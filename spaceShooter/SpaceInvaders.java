@@ -1,17 +1,30 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Random;
-import javax.swing.*;
+import java.util.BitSet;
+import javax.swing.ImageIcon;
 
-public class SpaceInvaders extends JPanel implements ActionListener, KeyListener {
-    //board
-    int tileSize = 32;
-    int rows = 16;
-    int columns = 16;
+//the window side of the game: draws a SpaceInvadersWorld and turns keys into its moves
+public class SpaceInvaders extends Canvas implements GameLoop.Game, KeyListener, InputQueue.Handler {
+    //timed phases, H shows them in the bottom left corner
+    static final int MOVE = 0;
+    static final int COLLISION = 1;
+    static final int DRAW = 2;
+    static final int RENDER = 3;
+    static final int INPUT = 4; //from the key event to the end of the first frame drawn after it
 
-    int boardWidth = tileSize * columns; // 32 * 16
-    int boardHeight = tileSize * rows; // 32 * 16
+    static final int HOLD_REPEAT_TICKS = 6; //a held arrow moves the ship again every 6 ticks
+    static final int SEEK_TICKS = 600; //an arrow jumps a replay 10 s back or forward
+
+    //-Dsi.replays=<dir> saves every finished game there as spaceinvaders-<seed>.replay
+    static final String REPLAY_DIR = System.getProperty("si.replays");
+
+    SpaceInvadersWorld world;
 
     Image shipImg;
     Image alienImg;
@@ -20,64 +33,60 @@ public class SpaceInvaders extends JPanel implements ActionListener, KeyListener
     Image alienYellowImg;
     ArrayList<Image> alienImgArray;
 
-    class Block {
-        int x;
-        int y;
-        int width;
-        int height;
-        Image img;
-        boolean alive = true; //used for aliens
-        boolean used = false; //used for bullets
-        
-        Block(int x, int y, int width, int height, Image img) {
-            this.x = x;
-            this.y = y;
-            this.width = width;
-            this.height = height;
-            this.img = img;
-        }
+    Font scoreFont = new Font("Arial", Font.PLAIN, 32);
+
+    Font hudFont = new Font("Monospaced", Font.PLAIN, 12);
+    int hudWidth = 240;
+
+    GameLoop gameLoop;
+    DamageTracker damage;
+    boolean drawnGameOver = false; // the score line changes completely when the game ends or restarts
+    StressCounters counters; //only in stress mode, shown in the top right corner
+    PhaseTimings timings = new PhaseTimings("spaceinvaders", "move", "collision", "draw", "render", "input");
+    boolean showTimings = PhaseTimings.HUD;
+
+    //keys go through here, everything below it is only touched by the game loop
+    InputQueue inputQueue = new InputQueue();
+    int tickInput; //SpaceInvadersWorld.LEFT | RIGHT | FIRE pressed since the last tick
+    boolean leftHeld;
+    boolean rightHeld;
+    int heldTicks;
+    BitSet keysDown = new BitSet(); //pressed and not released yet, so autorepeat presses can be told apart
+    long oldestInputNanos; //earliest key event not on screen yet, 0 when there is none
+
+    ReplayLog recording; //the game being played, when it is being saved
+    ReplayLog replay; //set to watch a recorded game instead of playing
+    HighScores scores = HighScores.shared().start(); //every finished game's score goes here
+    int replayCursor;
+    int replaySpeed = 1; //ticks per tick
+    boolean replayPaused;
+
+    SpaceInvaders() {
+        this(new SpaceInvadersWorld());
     }
 
-    //ship
-    int shipWidth = tileSize*2;
-    int shipHeight = tileSize*2;
-    int shipX = tileSize * columns/2 - tileSize;
-    int shipY = tileSize * rows - tileSize*2;
-    int shipVelocityX = tileSize; //ship moving speed
-    Block ship;
-
-    //aliens
-    ArrayList<Block> alienArray;
-    int alienWidth = tileSize*2;
-    int alienHeight = tileSize;
-    int alienX = tileSize;
-    int alienY = tileSize;
-    int alienRows = 2;
-    int alienColumns = 3;
-    int alienCount = 0; 
-    int alienVelocityX = 1;
-
-    ArrayList<Block> bulletArray;
-    int bulletWidth = tileSize/8;
-    int bulletHeight = tileSize/2;
-    int bulletVelocityY = -10;
-
-    Timer gameLoop;
-    boolean gameOver = false;
-    int score = 0;
+    SpaceInvaders(SpaceInvadersWorld world) {
+        this(world, null);
+    }
 
-    SpaceInvaders() {
-        setPreferredSize(new Dimension(boardWidth, boardHeight));
+    //with a replay the window watches it instead of playing, and nothing gets recorded
+    SpaceInvaders(SpaceInvadersWorld world, ReplayLog replay) {
+        this.replay = replay;
+        setWorld(world);
+        startRecording();
+        damage = new DamageTracker(world.boardWidth, world.boardHeight);
+        setPreferredSize(new Dimension(world.boardWidth, world.boardHeight));
         setBackground(Color.black);
         setFocusable(true);
+        setIgnoreRepaint(true); //the game loop draws every frame itself
         addKeyListener(this);
 
-        //all the potos daww
-        shipImg = new ImageIcon(getClass().getResource("ship.png")).getImage();
-        alienImg = new ImageIcon(getClass().getResource("alien.png")).getImage();
-        alienCyanImg = new ImageIcon(getClass().getResource("alien-cyan.png")).getImage();
-        alienMagentaImg = new ImageIcon(getClass().getResource("alien-magenta.png")).getImage();    
-        alienYellowImg = new ImageIcon(getClass().getResource("alien-yellow.png")).getImage();
+        //all the potos daww, already at the size they're drawn at
+        shipImg = sprite("ship.png", world.shipWidth, world.shipHeight);
+        alienImg = sprite("alien.png", world.alienWidth, world.alienHeight);
+        alienCyanImg = sprite("alien-cyan.png", world.alienWidth, world.alienHeight);
+        alienMagentaImg = sprite("alien-magenta.png", world.alienWidth, world.alienHeight);
+        alienYellowImg = sprite("alien-yellow.png", world.alienWidth, world.alienHeight);
 
         alienImgArray = new ArrayList<Image>();
         alienImgArray.add(alienImg);
@@ -85,176 +94,336 @@ public class SpaceInvaders extends JPanel implements ActionListener, KeyListener
         alienImgArray.add(alienMagentaImg);
         alienImgArray.add(alienYellowImg);
 
-        ship = new Block(shipX, shipY, shipWidth, shipHeight, shipImg);
-        alienArray = new ArrayList<Block>();
-        bulletArray = new ArrayList<Block>();
-
         //time is wealth - bharathiyar(prolly)
-        gameLoop = new Timer(1000/60, this); //1000/60 = 16.6
-        createAliens();
+        gameLoop = new GameLoop(this, this, 60, 120); //60 ticks a second, drawn at up to 120 fps
+    }
+
+    //scaling once here means a frame only copies pixels, a damaged region redraws every alien in it
+    Image sprite(String name, int width, int height) {
+        Image img = new ImageIcon(getClass().getResource(name)).getImage();
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.drawImage(img, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    void setWorld(SpaceInvadersWorld world) {
+        this.world = world;
+        world.collisionTimes = timings.get(COLLISION);
+    }
+
+    //call once the window is showing
+    public void start() {
         gameLoop.start();
     }
 
-    public void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        draw(g);
+    @Override
+    public void invalidateFrame() {
+        damage.invalidate();
+    }
+
+    //only the black behind things that moved gets repainted, the rest of the buffer is last frame
+    @Override
+    public void render(Graphics2D g, double alpha) {
+        long start = System.nanoTime();
+        if (world.gameOver != drawnGameOver) {
+            drawnGameOver = world.gameOver;
+            damage.invalidate();
+        }
+        if (world.gameOver) {
+            alpha = 1;
+        }
+        addDamage(g, alpha);
+
+        int regions = damage.collect();
+        for (int i = 0; i < regions; i++) {
+            damage.clip(g, i);
+            g.setColor(Color.black);
+            g.fillRect(0, 0, world.boardWidth, world.boardHeight);
+            long drawStart = System.nanoTime();
+            draw(g, alpha);
+            timings.record(DRAW, drawStart);
+        }
+        g.setClip(null);
+        timings.record(RENDER, start);
+        if (oldestInputNanos != 0) {
+            timings.record(INPUT, oldestInputNanos);
+            oldestInputNanos = 0;
+        }
+    }
+
+    //where draw(g, alpha) is going to put the ship, the formation, the bullets and the score
+    void addDamage(Graphics2D g, double alpha) {
+        damage.add(world.shipX, world.shipY, world.shipWidth, world.shipHeight);
+
+        AlienFormation aliens = world.aliens;
+        if (aliens.count > 0) {
+            damage.add(formationX(alpha) + aliens.minColumn * aliens.alienWidth, formationY(alpha),
+                    (aliens.maxColumn - aliens.minColumn + 1) * aliens.alienWidth, (aliens.maxRow + 1) * aliens.alienHeight);
+        }
+
+        BulletPool bullets = world.bullets;
+        int bulletLag = bulletLag(alpha);
+        for (int i = 0; i < bullets.count; i++) {
+            //drawRect reaches one pixel past the size
+            damage.add(bullets.x[i], bullets.y[i] + bulletLag, world.bulletWidth + 1, world.bulletHeight + 1);
+        }
+
+        FontMetrics metrics = g.getFontMetrics(scoreFont);
+        damage.add(10, 35 - metrics.getAscent(), metrics.stringWidth(scoreText()), metrics.getAscent() + metrics.getDescent());
+
+        if (counters != null) {
+            damage.add(world.boardWidth - hudWidth, 0, hudWidth, 4 * 14 + 10);
+        }
+        if (replay != null) {
+            damage.add(world.boardWidth - hudWidth, 0, hudWidth, 24);
+        }
+        if (showTimings) {
+            damage.add(0, world.boardHeight - timings.size() * 14 - 10, world.boardWidth, timings.size() * 14 + 10);
+        }
+    }
+
+    int formationX(double alpha) {
+        AlienFormation aliens = world.aliens;
+        return aliens.prevOffsetX + (int) Math.round((aliens.offsetX - aliens.prevOffsetX) * alpha);
+    }
+
+    int formationY(double alpha) {
+        AlienFormation aliens = world.aliens;
+        return aliens.prevOffsetY + (int) Math.round((aliens.offsetY - aliens.prevOffsetY) * alpha);
+    }
+
+    int bulletLag(double alpha) {
+        return (int) Math.round(world.bulletVelocityY * (alpha - 1));
+    }
+
+    String scoreText() {
+        if (world.gameOver) {
+            return "Game Over: " + String.valueOf(world.score);
+        }
+        return String.valueOf(world.score);
     }
 
     public void draw(Graphics g) {
-        //ship
-        g.drawImage(ship.img, ship.x, ship.y, ship.width, ship.height, null);
+        draw(g, 1);
+    }
 
-        //aliens
-        for (int i = 0; i < alienArray.size(); i++) {
-            Block alien = alienArray.get(i);
-            if (alien.alive) {
-                g.drawImage(alien.img, alien.x, alien.y, alien.width, alien.height, null);
+    //alpha says how far between the previous tick and this one to draw the moving things
+    public void draw(Graphics g, double alpha) {
+        //ship
+        g.drawImage(shipImg, world.shipX, world.shipY, world.shipWidth, world.shipHeight, null);
+
+        //aliens, the ones outside a damaged region's clip aren't worth a scaled drawImage call
+        AlienFormation aliens = world.aliens;
+        int formationX = formationX(alpha);
+        int formationY = formationY(alpha);
+        Rectangle clip = g.getClipBounds();
+        for (int i = aliens.alive.nextSetBit(0); i >= 0; i = aliens.alive.nextSetBit(i + 1)) {
+            if (clip != null && !clip.intersects(formationX + aliens.x[i], formationY + aliens.y[i],
+                    aliens.alienWidth, aliens.alienHeight)) {
+                continue;
             }
+            g.drawImage(alienImgArray.get(aliens.img[i]), formationX + aliens.x[i], formationY + aliens.y[i],
+                    aliens.alienWidth, aliens.alienHeight, null);
         }
 
         //bullets pew pew 
         g.setColor(Color.red);
-        for (int i = 0; i < bulletArray.size(); i++) {
-            Block bullet = bulletArray.get(i);
-            if (!bullet.used) {
-                g.drawRect(bullet.x, bullet.y, bullet.width, bullet.height);
-                g.fillRect(bullet.x, bullet.y, bullet.width, bullet.height);
-            }
+        BulletPool bullets = world.bullets;
+        int bulletLag = bulletLag(alpha);
+        for (int i = 0; i < bullets.count; i++) {
+            g.drawRect(bullets.x[i], bullets.y[i] + bulletLag, world.bulletWidth, world.bulletHeight);
+            g.fillRect(bullets.x[i], bullets.y[i] + bulletLag, world.bulletWidth, world.bulletHeight);
         }
 
         g.setColor(Color.white);
-        g.setFont(new Font("Arial", Font.PLAIN, 32));
-        if (gameOver) {
-            g.drawString("Game Over: " + String.valueOf((int) score), 10, 35);
+        g.setFont(scoreFont);
+        g.drawString(scoreText(), 10, 35);
+
+        if (counters != null) {
+            g.setFont(hudFont);
+            String[] lines = counters.lines();
+            for (int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], world.boardWidth - hudWidth + 4, 18 + i * 14);
+            }
         }
-        else {
-            g.drawString(String.valueOf((int) score), 10, 35);
+        if (replay != null) {
+            g.setFont(hudFont);
+            g.drawString(String.format("replay %.1f/%.1fs x%d%s", world.ticks / 60.0, replay.endTick / 60.0,
+                    replaySpeed, replayPaused ? " paused" : ""), world.boardWidth - hudWidth + 4, 18);
+        }
+        if (showTimings) {
+            g.setFont(hudFont);
+            g.setColor(Color.white);
+            String[] lines = timings.hudLines();
+            for (int i = 0; i < lines.length; i++) {
+                g.drawString(lines[i], 4, world.boardHeight - (lines.length - i) * 14 + 4);
+            }
         }
     }
 
-    public void move() {
-        //alien
-        for (int i = 0; i < alienArray.size(); i++) {
-            Block alien = alienArray.get(i);
-            if (alien.alive) {
-                alien.x += alienVelocityX;
-
-                //alien touch lines borders blah blah
-                if (alien.x + alien.width >= boardWidth || alien.x <= 0) {
-                    alienVelocityX *= -1;
-                    alien.x += alienVelocityX*2;
-
-                    //alien mela po one line
-                    for (int j = 0; j < alienArray.size(); j++) {
-                        alienArray.get(j).y += alienHeight;
-                    }
-                }
-
-                if (alien.y >= ship.y) {
-                    gameOver = true;
-                }
+    @Override
+    public void update() {
+        long start = System.nanoTime();
+        int input = drainInput();
+        if (replay != null) {
+            stepReplay();
+        }
+        else if (counters != null) {
+            counters.tick(world, input);
+        }
+        else if (!world.gameOver) {
+            if (recording != null) {
+                recording.record(world.ticks, input);
+            }
+            world.step(input);
+            if (world.gameOver) {
+                saveRecording();
+                scores.submit(HighScores.SPACE_INVADERS, world.score);
             }
         }
+        else {
+            return;
+        }
+        timings.record(MOVE, start);
+    }
 
-        //bullets pew pew
-        for (int i = 0; i < bulletArray.size(); i++) {
-            Block bullet = bulletArray.get(i);
-            bullet.y += bulletVelocityY;
-
-            //bullet collision with aliens
-            for (int j = 0; j < alienArray.size(); j++) {
-                Block alien = alienArray.get(j);
-                if (!bullet.used && alien.alive && detectCollision(bullet, alien)) {
-                    bullet.used = true;
-                    alien.alive = false;
-                    alienCount--;
-                    score += 100;
-                }
-            }
+    void startRecording() {
+        recording = REPLAY_DIR != null && replay == null ? ReplayLog.of(world) : null;
+    }
+
+    void saveRecording() {
+        if (recording == null) {
+            return;
+        }
+        recording.finish(world);
+        try {
+            Path dir = Paths.get(REPLAY_DIR);
+            Files.createDirectories(dir);
+            recording.write(dir.resolve(String.format("spaceinvaders-%016x.replay", recording.seed)));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
 
-        while (bulletArray.size() > 0 && (bulletArray.get(0).used || bulletArray.get(0).y < 0)) {
-            bulletArray.remove(0); //removes the first element of the arraay clear bulletss
+    void stepReplay() {
+        if (replayPaused) {
+            return;
         }
+        for (int i = 0; i < replaySpeed && !world.gameOver; i++) {
+            replayCursor = replay.step(world, replayCursor);
+        }
+    }
 
-        //level ++
-        if (alienCount == 0) {
-            //increase the number of aliens in columns and rows by 1
-            score += alienColumns * alienRows * 100; //bonus points :)
-            alienColumns = Math.min(alienColumns + 1, columns/2 -2); //cap at 16/2 -2 = 6
-            alienRows = Math.min(alienRows + 1, rows-6);  //cap at 16-6 = 10
-            alienArray.clear();
-            bulletArray.clear();
-            createAliens();
+    //going back replays from the start, it's deterministic and thousands of ticks take milliseconds
+    void seek(long tick) {
+        tick = Math.max(0, Math.min(tick, replay.endTick));
+        if (tick < world.ticks) {
+            setWorld(replay.world());
+            replayCursor = 0;
         }
+        while (world.ticks < tick && !world.gameOver) {
+            replayCursor = replay.step(world, replayCursor);
+        }
+        damage.invalidate();
     }
 
-    public void createAliens() {
-        Random random = new Random();
-        for (int c = 0; c < alienColumns; c++) {
-            for (int r = 0; r < alienRows; r++) {
-                int randomImgIndex = random.nextInt(alienImgArray.size());
-                Block alien = new Block(
-                    alienX + c*alienWidth, 
-                    alienY + r*alienHeight, 
-                    alienWidth, 
-                    alienHeight,
-                    alienImgArray.get(randomImgIndex)
-                );
-                alienArray.add(alien);
-            }
+    //arrows seek, up and down change the speed, space pauses
+    void replayKey(int key) {
+        if (key == KeyEvent.VK_LEFT) {
+            seek(world.ticks - SEEK_TICKS);
+        }
+        else if (key == KeyEvent.VK_RIGHT) {
+            seek(world.ticks + SEEK_TICKS);
+        }
+        else if (key == KeyEvent.VK_UP) {
+            replaySpeed = Math.min(replaySpeed * 2, 64);
+        }
+        else if (key == KeyEvent.VK_DOWN) {
+            replaySpeed = Math.max(replaySpeed / 2, 1);
+        }
+        else if (key == KeyEvent.VK_SPACE) {
+            replayPaused = !replayPaused;
         }
-        alienCount = alienArray.size();
     }
-    
 
-    public boolean detectCollision(Block a, Block b) {
-        return  a.x < b.x + b.width &&  //a's top left corner doesn't reach b's top right corner
-                a.x + a.width > b.x &&  //a's top right corner passes b's top left corner
-                a.y < b.y + b.height && //a's top left corner doesn't reach b's bottom left corner
-                a.y + a.height > b.y;   //a's bottom left corner passes b's top left corner
+    //applies the keys that came in since the last tick and turns them into this tick's world input
+    int drainInput() {
+        tickInput = 0;
+        inputQueue.drain(this);
+        int input = tickInput;
+        if ((leftHeld || rightHeld) && ++heldTicks % HOLD_REPEAT_TICKS == 0) {
+            input |= leftHeld ? SpaceInvadersWorld.LEFT : SpaceInvadersWorld.RIGHT;
+        }
+        return input;
     }
 
+    //any new key press restarts except H, which shows the timings. a held key's autorepeat only
+    //moves the ship (or seeks a replay), it doesn't fire, restart or toggle anything
     @Override
-    public void actionPerformed(ActionEvent e) {
-        move();
-        repaint();
-        if (gameOver) {
-            gameLoop.stop();
+    public void command(int command, long nanos) {
+        if (oldestInputNanos == 0) {
+            oldestInputNanos = nanos;
+        }
+        int key = InputQueue.keyCode(command);
+        if (InputQueue.kind(command) == InputQueue.KEY_RELEASED) {
+            keysDown.clear(key);
+            if (key == KeyEvent.VK_LEFT) {
+                leftHeld = false;
+            }
+            else if (key == KeyEvent.VK_RIGHT) {
+                rightHeld = false;
+            }
+            return;
+        }
+        boolean repeat = keysDown.get(key);
+        keysDown.set(key);
+        if (repeat && key != KeyEvent.VK_LEFT && key != KeyEvent.VK_RIGHT) {
+            return;
+        }
+
+        if (key == KeyEvent.VK_H) {
+            showTimings = !showTimings;
+            damage.invalidate();
+        }
+        else if (replay != null) {
+            replayKey(key);
+        }
+        else if (world.gameOver) {
+            if (!repeat) {
+                world.restart();
+                startRecording();
+            }
+        }
+        else if (key == KeyEvent.VK_LEFT && !leftHeld) {
+            tickInput |= SpaceInvadersWorld.LEFT;
+            leftHeld = true;
+            rightHeld = false;
+            heldTicks = 0;
+        }
+        else if (key == KeyEvent.VK_RIGHT && !rightHeld) {
+            tickInput |= SpaceInvadersWorld.RIGHT;
+            rightHeld = true;
+            leftHeld = false;
+            heldTicks = 0;
+        }
+        else if (key == KeyEvent.VK_SPACE) {
+            tickInput |= SpaceInvadersWorld.FIRE;
         }
     }
 
+    //the EDT only queues keys, the game loop applies them at the start of its next tick
     @Override
-    public void keyPressed(KeyEvent e) {}
+    public void keyPressed(KeyEvent e) {
+        inputQueue.offer(InputQueue.keyPressed(e.getKeyCode()));
+    }
 
     @Override
     public void keyTyped(KeyEvent e) {}
 
     @Override
-    //any key restart ()
     public void keyReleased(KeyEvent e) {
-        if (gameOver) {
-            ship.x = shipX;
-            bulletArray.clear();
-            alienArray.clear();
-            gameOver = false;
-            score = 0;
-            alienColumns = 3;
-            alienRows = 2;
-            alienVelocityX = 1;
-            createAliens();
-            gameLoop.start();
-        }
-        else if (e.getKeyCode() == KeyEvent.VK_LEFT  && ship.x - shipVelocityX >= 0) {
-            ship.x -= shipVelocityX; //move left 1 p
-        }
-        else if (e.getKeyCode() == KeyEvent.VK_RIGHT  && ship.x + shipVelocityX + ship.width <= boardWidth) {
-            ship.x += shipVelocityX; //move right 1 p
-        }
-        else if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            //shoots
-            Block bullet = new Block(ship.x + shipWidth*15/32, ship.y, bulletWidth, bulletHeight, null);
-            bulletArray.add(bullet);
-        }
+        inputQueue.offer(InputQueue.keyReleased(e.getKeyCode()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.swing.JFrame;
+
+// plays a ReplayLog back. headless it runs the game as fast as it goes and checks that it ends on the
+// recorded tick with the recorded score, in a window it plays at 60 ticks/s with seeking (arrows),
+// speed (up/down) and pause (space). with bot= it records a SpaceInvadersSim bot's game instead
+// usage: java SpaceInvadersReplay <replay> [window=false]
+//        java SpaceInvadersReplay <replay> bot=tracker|random|idle-fire [seed=<random>] [maxTicks=100000]
+public class SpaceInvadersReplay {
+
+    // true when the replay ends exactly where and how it was recorded
+    static boolean verify(ReplayLog log) {
+        SpaceInvadersWorld world = log.world();
+        int cursor = 0;
+        while (!world.gameOver && world.ticks < log.endTick) {
+            cursor = log.step(world, cursor);
+        }
+        return world.ticks == log.endTick && world.score == log.score;
+    }
+
+    static ReplayLog record(String bot, long seed, long maxTicks) {
+        SpaceInvadersWorld world = new SpaceInvadersWorld(seed);
+        SpaceInvadersSim.Controller controller = new SpaceInvadersSim(bot, 4, maxTicks).controller(seed);
+        ReplayLog log = ReplayLog.of(world);
+        while (!world.gameOver && world.ticks < maxTicks) {
+            int input = controller.decide(world);
+            log.record(world.ticks, input);
+            world.step(input);
+        }
+        log.finish(world);
+        return log;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("usage: java SpaceInvadersReplay <replay> [window=false] [bot=<name> seed=<n> maxTicks=<n>]");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+
+        String bot = SpaceInvadersSim.arg(args, "bot", null);
+        if (bot != null) {
+            ReplayLog log = record(bot, SpaceInvadersSim.arg(args, "seed", System.nanoTime()),
+                    SpaceInvadersSim.arg(args, "maxTicks", 100_000));
+            log.write(path);
+            System.out.printf("recorded   %s, %,d ticks, score %,d, %,d inputs%n", bot, log.endTick, log.score, log.size());
+            return;
+        }
+
+        ReplayLog log = ReplayLog.read(path);
+        if (SpaceInvadersSim.arg(args, "window", "false").equals("true")) {
+            JFrame frame = new JFrame("Space Invaders replay");
+            SpaceInvaders game = new SpaceInvaders(log.world(), log);
+            frame.add(game);
+            frame.setResizable(false);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            game.requestFocus();
+            game.start();
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean valid = verify(log);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("replay     seed %016x, %,d ticks (%.1f s of play), %,d inputs%n", log.seed, log.endTick,
+                log.endTick / 60.0, log.size());
+        System.out.printf("score      %,d %s%n", log.score, valid ? "valid" : "DOES NOT MATCH the replayed game");
+        System.out.printf("speed      %,.0f ticks/s, %,.0fx real time (%.3f s)%n", log.endTick / seconds,
+                log.endTick / seconds / 60, seconds);
+        if (!valid) {
+            System.exit(1);
+        }
+    }
+}
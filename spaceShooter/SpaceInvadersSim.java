@@ -0,0 +1,159 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// headless bot runner for SpaceInvadersWorld, every episode is its own world stepped as fast as it goes
+// usage: java SpaceInvadersSim [episodes=10000] [bot=tracker|random|idle-fire] [fireEvery=4]
+//                              [maxTicks=100000] [threads=<cores>] [seed=<random>]
+public class SpaceInvadersSim {
+
+    // picks the inputs for the next tick, SpaceInvadersWorld.LEFT | RIGHT | FIRE
+    interface Controller {
+        int decide(SpaceInvadersWorld world);
+    }
+
+    // keeps the ship under the leftmost living column, so the formation gets eaten one column at a time,
+    // and fires once every fireEvery ticks on average. the world only uses its seed for alien colours, so
+    // the seed gives each episode's bot its own aim, off by up to half a ship, and its own fire timing,
+    // otherwise every episode would play out exactly the same
+    static Controller tracker(int fireEvery, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double aim = random.nextDouble() - 0.5;
+        return world -> {
+            AlienFormation aliens = world.aliens;
+            int target = aliens.left() + aliens.alienWidth / 2 + (int) (aim * world.shipWidth);
+            int shipCenter = world.shipX + world.shipWidth / 2;
+            int input = random.nextInt(fireEvery) == 0 ? SpaceInvadersWorld.FIRE : 0;
+            if (target < shipCenter - world.shipVelocityX / 2) {
+                input |= SpaceInvadersWorld.LEFT;
+            } else if (target > shipCenter + world.shipVelocityX / 2) {
+                input |= SpaceInvadersWorld.RIGHT;
+            }
+            return input;
+        };
+    }
+
+    // mashes keys, mostly there to have a floor to compare against
+    static Controller random(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return world -> random.nextInt(8);
+    }
+
+    static Controller idleFire(int fireEvery) {
+        return world -> world.ticks % fireEvery == 0 ? SpaceInvadersWorld.FIRE : 0;
+    }
+
+    static class Stats {
+        long episodes;
+        long totalScore;
+        long minScore;
+        long maxScore;
+        long totalWaves;
+        long totalTicks;
+        long timeouts; // episodes still alive at maxTicks
+
+        Stats add(Stats other) {
+            episodes += other.episodes;
+            totalScore += other.totalScore;
+            minScore = Math.min(minScore, other.minScore);
+            maxScore = Math.max(maxScore, other.maxScore);
+            totalWaves += other.totalWaves;
+            totalTicks += other.totalTicks;
+            timeouts += other.timeouts;
+            return this;
+        }
+    }
+
+    final String bot;
+    final int fireEvery;
+    final long maxTicks;
+
+    SpaceInvadersSim(String bot, int fireEvery, long maxTicks) {
+        this.bot = bot;
+        this.fireEvery = fireEvery;
+        this.maxTicks = maxTicks;
+    }
+
+    Controller controller(long seed) {
+        switch (bot) {
+            case "random":
+                return random(seed);
+            case "idle-fire":
+                return idleFire(fireEvery);
+            default:
+                return tracker(fireEvery, seed);
+        }
+    }
+
+    // one game until it's over or maxTicks runs out, on whatever thread called it
+    Stats play(long seed) {
+        SpaceInvadersWorld world = new SpaceInvadersWorld(seed);
+        Controller controller = controller(seed);
+        while (!world.gameOver && world.ticks < maxTicks) {
+            world.step(controller.decide(world));
+        }
+
+        Stats stats = new Stats();
+        stats.episodes = 1;
+        stats.totalScore = world.score;
+        stats.minScore = world.score;
+        stats.maxScore = world.score;
+        stats.totalWaves = world.wave;
+        stats.totalTicks = world.ticks;
+        stats.timeouts = world.gameOver ? 0 : 1;
+        return stats;
+    }
+
+    Stats run(int episodes, long seed, int threads) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> IntStream.range(0, episodes)
+                    .parallel()
+                    .mapToObj(e -> play(seed + e * 0x9E3779B97F4A7C15L))
+                    .reduce(Stats::add))
+                    .get()
+                    .orElseGet(Stats::new);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static String arg(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return fallback;
+    }
+
+    static long arg(String[] args, String name, long fallback) {
+        return Long.parseLong(arg(args, name, String.valueOf(fallback)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int episodes = (int) arg(args, "episodes", 10_000);
+        String bot = arg(args, "bot", "tracker");
+        int fireEvery = (int) arg(args, "fireEvery", 4);
+        long maxTicks = arg(args, "maxTicks", 100_000);
+        int threads = (int) arg(args, "threads", Runtime.getRuntime().availableProcessors());
+        long seed = arg(args, "seed", System.nanoTime());
+
+        SpaceInvadersSim sim = new SpaceInvadersSim(bot, fireEvery, maxTicks);
+        long start = System.nanoTime();
+        Stats stats = sim.run(episodes, seed, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double total = Math.max(1, stats.episodes);
+        System.out.printf("episodes   %,d on %d threads (seed %d)%n", stats.episodes, threads, seed);
+        System.out.printf("bot        %s, fires every %d ticks%n", bot, fireEvery);
+        System.out.printf("score      %.1f mean, %,d min, %,d max%n", stats.totalScore / total, stats.minScore, stats.maxScore);
+        if (stats.episodes > 1 && stats.minScore == stats.maxScore && !bot.equals("random")) {
+            System.out.println("           every episode scored the same, " + bot + " may play every seed alike");
+        }
+        System.out.printf("wave       %.2f mean%n", stats.totalWaves / total);
+        System.out.printf("ticks      %.0f mean, %,d hit maxTicks=%d%n", stats.totalTicks / total, stats.timeouts, maxTicks);
+        System.out.printf("speed      %,.0f episodes/s, %,.0f ticks/s (%.2f s)%n",
+                stats.episodes / seconds, stats.totalTicks / seconds, seconds);
+    }
+}
@@ -0,0 +1,64 @@
+import javax.swing.JFrame;
+
+// SpaceInvaders without the caps: any board, any formation, auto-fire with volleys of bullets, and the
+// StressCounters printed every second (headless, ticking as fast as it can) or on the hud (window, 60 ticks/s)
+// usage: java SpaceInvadersStress [tileSize=4] [boardColumns=1024] [boardRows=512] [alienColumns=200]
+//                                 [alienRows=100] [fireEvery=1] [volley=64] [bullets=65536]
+//                                 [seconds=10] [window=false] [seed=<random>]
+public class SpaceInvadersStress {
+
+    static SpaceInvadersWorld world(String[] args) {
+        int tileSize = (int) SpaceInvadersSim.arg(args, "tileSize", 4);
+        int boardColumns = (int) SpaceInvadersSim.arg(args, "boardColumns", 1024);
+        int boardRows = (int) SpaceInvadersSim.arg(args, "boardRows", 512);
+
+        long seed = SpaceInvadersSim.arg(args, "seed", System.nanoTime());
+        SpaceInvadersWorld world = new SpaceInvadersWorld(tileSize, boardRows, boardColumns, seed);
+        world.bullets = new BulletPool((int) SpaceInvadersSim.arg(args, "bullets", 65536));
+        world.autoFireEvery = (int) SpaceInvadersSim.arg(args, "fireEvery", 1);
+        world.volley = (int) SpaceInvadersSim.arg(args, "volley", 64);
+        world.formation((int) SpaceInvadersSim.arg(args, "alienColumns", 200),
+                (int) SpaceInvadersSim.arg(args, "alienRows", 100));
+        return world;
+    }
+
+    public static void main(String[] args) throws Exception {
+        SpaceInvadersWorld world = world(args);
+        StressCounters counters = new StressCounters();
+
+        if (SpaceInvadersSim.arg(args, "window", "false").equals("true")) {
+            JFrame frame = new JFrame("Space Invaders stress");
+            SpaceInvaders game = new SpaceInvaders(world);
+            game.counters = counters;
+            frame.add(game);
+            frame.setResizable(false);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+            game.requestFocus();
+            game.start();
+            return;
+        }
+
+        long seconds = SpaceInvadersSim.arg(args, "seconds", 10);
+        System.out.printf("board %dx%d px, formation %dx%d, %d bullets every %d ticks%n", world.boardWidth,
+                world.boardHeight, world.startAlienColumns, world.startAlienRows, world.volley, world.autoFireEvery);
+        long start = System.nanoTime();
+        long nextReport = start + 1_000_000_000L;
+        long reportedTicks = 0;
+        while (true) {
+            counters.tick(world, 0);
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                System.out.printf("%,9d ticks/s  %s  restarts %d%n", counters.ticks - reportedTicks,
+                        String.join("  ", counters.lines()), counters.restarts);
+                reportedTicks = counters.ticks;
+                nextReport += 1_000_000_000L;
+                if (now - start >= seconds * 1_000_000_000L) {
+                    break;
+                }
+            }
+        }
+    }
+}
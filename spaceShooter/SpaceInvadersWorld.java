@@ -0,0 +1,245 @@
+import java.util.SplittableRandom;
+
+// everything SpaceInvaders simulates and nothing it draws: the ship, the alien formation, the
+// bullets, the score and the wave progression. no awt or swing in here, so the window just renders
+// one of these and a headless run can step as many of them as the cpu allows. a game is fully
+// decided by its seed and the input given to each step(), which is what a ReplayLog records
+class SpaceInvadersWorld {
+    //inputs for step(), any combination of them
+    static final int LEFT = 1;
+    static final int RIGHT = 2;
+    static final int FIRE = 4;
+
+    static final int ALIEN_IMAGES = 4; //alien.png and the cyan, magenta and yellow ones
+
+    //board
+    final int tileSize;
+    final int rows;
+    final int columns;
+
+    int boardWidth;
+    int boardHeight;
+
+    //ship
+    int shipWidth;
+    int shipHeight;
+    int shipStartX;
+    int shipX;
+    int shipY;
+    int shipVelocityX; //ship moving speed
+
+    //aliens
+    AlienFormation aliens;
+    int alienWidth;
+    int alienHeight;
+    int alienX;
+    int alienY;
+    int startAlienRows = 2;
+    int startAlienColumns = 3;
+    int maxAlienRows; //waves stop growing here
+    int maxAlienColumns;
+    int alienRows = startAlienRows;
+    int alienColumns = startAlienColumns;
+    int alienVelocityX = 1;
+
+    BulletPool bullets = new BulletPool(256);
+    int bulletWidth;
+    int bulletHeight;
+    int bulletVelocityY = -10;
+
+    //stress mode, off in the real game
+    int autoFireEvery = 0; //ticks between automatic shots, 0 for none
+    int volley = 1; //bullets per automatic shot, more than one are spread across the board
+
+    long seed; //of the current game, every random choice in it comes from random
+    SplittableRandom random;
+
+    boolean gameOver = false;
+    int score = 0;
+    int wave = 1;
+    long ticks = 0;
+    long collisionTests = 0; //alien slots looked at by bullets in the last tick
+    LatencyHistogram collisionTimes; //the bullet loop is timed into this when it's set
+
+    SpaceInvadersWorld() {
+        this(System.nanoTime());
+    }
+
+    SpaceInvadersWorld(long seed) {
+        this(32, 16, 16, seed);
+    }
+
+    SpaceInvadersWorld(int tileSize, int rows, int columns, long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        this.tileSize = tileSize;
+        this.rows = rows;
+        this.columns = columns;
+        boardWidth = tileSize * columns; // 32 * 16
+        boardHeight = tileSize * rows; // 32 * 16
+
+        shipWidth = tileSize*2;
+        shipHeight = tileSize*2;
+        shipStartX = tileSize * columns/2 - tileSize;
+        shipX = shipStartX;
+        shipY = tileSize * rows - tileSize*2;
+        shipVelocityX = tileSize;
+
+        alienWidth = tileSize*2;
+        alienHeight = tileSize;
+        alienX = tileSize;
+        alienY = tileSize;
+        maxAlienColumns = columns/2 -2; //16/2 -2 = 6
+        maxAlienRows = rows-6; //16-6 = 10
+
+        bulletWidth = Math.max(1, tileSize/8); //tiny tiles still need a bullet that can hit
+        bulletHeight = tileSize/2;
+        createAliens();
+    }
+
+    //waves start at columns x rows and stop growing past the bigger of that and the board's usual cap
+    void formation(int columns, int rows) {
+        startAlienColumns = alienColumns = columns;
+        startAlienRows = alienRows = rows;
+        maxAlienColumns = Math.max(maxAlienColumns, columns);
+        maxAlienRows = Math.max(maxAlienRows, rows);
+        createAliens();
+    }
+
+    //one tick with the given inputs applied first, what a controller does instead of pressing keys
+    void step(int input) {
+        if (gameOver) {
+            return;
+        }
+        if ((input & LEFT) != 0) {
+            moveLeft();
+        }
+        if ((input & RIGHT) != 0) {
+            moveRight();
+        }
+        if ((input & FIRE) != 0) {
+            fire();
+        }
+        move();
+    }
+
+    void moveLeft() {
+        if (shipX - shipVelocityX >= 0) {
+            shipX -= shipVelocityX; //move left 1 p
+        }
+    }
+
+    void moveRight() {
+        if (shipX + shipVelocityX + shipWidth <= boardWidth) {
+            shipX += shipVelocityX; //move right 1 p
+        }
+    }
+
+    //shoots, nothing happens if every bullet is already in the air
+    void fire() {
+        bullets.spawn(shipX + shipWidth*15/32, shipY);
+    }
+
+    public void move() {
+        ticks++;
+        if (autoFireEvery > 0 && ticks % autoFireEvery == 0) {
+            autoFire();
+        }
+
+        //alien, the whole formation moves as one and bounces when its living edge touches lines borders
+        alienVelocityX = aliens.move(alienVelocityX, boardWidth);
+        if (aliens.count > 0 && aliens.lowestY() >= shipY) {
+            gameOver = true;
+        }
+
+        //bullets pew pew
+        long testsBefore = aliens.tests;
+        long collisionStart = collisionTimes != null ? System.nanoTime() : 0;
+        //used or off screen bullets go back to the pool right away, the swapped in one is checked next
+        for (int i = 0; i < bullets.count; ) {
+            bullets.y[i] += bulletVelocityY;
+
+            //bullet collision with aliens, only the formation slots under the bullet
+            if (bullets.y[i] + bulletHeight <= 0 || hitAlien(bullets.x[i], bullets.y[i])) {
+                bullets.retire(i);
+            } else {
+                i++;
+            }
+        }
+        collisionTests = aliens.tests - testsBefore;
+        if (collisionTimes != null) {
+            collisionTimes.record(System.nanoTime() - collisionStart);
+        }
+
+        //level ++
+        if (aliens.count == 0) {
+            //increase the number of aliens in columns and rows by 1
+            score += alienColumns * alienRows * 100; //bonus points :)
+            alienColumns = Math.min(alienColumns + 1, maxAlienColumns);
+            alienRows = Math.min(alienRows + 1, maxAlienRows);
+            bullets.clear();
+            wave++;
+            createAliens();
+        }
+    }
+
+    //one bullet from the ship, or a volley spread evenly over the board
+    void autoFire() {
+        if (volley <= 1) {
+            fire();
+            return;
+        }
+        int gap = boardWidth / volley;
+        for (int i = 0; i < volley; i++) {
+            bullets.spawn(gap / 2 + i * gap, shipY);
+        }
+    }
+
+    //a bullet that moves more than its height a tick (small stress tiles) is checked over everything
+    //it flew through, otherwise it would skip whole rows of aliens
+    boolean hitAlien(int bulletX, int bulletY) {
+        int hit = -bulletVelocityY > bulletHeight
+                ? aliens.sweep(bulletX, bulletY, bulletWidth, bulletHeight - bulletVelocityY)
+                : aliens.hit(bulletX, bulletY, bulletWidth, bulletHeight);
+        if (hit < 0) {
+            return false;
+        }
+        score += 100;
+        return true;
+    }
+
+    public void createAliens() {
+        aliens = new AlienFormation(alienColumns, alienRows, alienWidth, alienHeight, alienX, alienY);
+        for (int i = 0; i < alienColumns * alienRows; i++) {
+            aliens.img[i] = random.nextInt(ALIEN_IMAGES);
+        }
+    }
+
+    //back to the first wave, the next game's seed comes from this one's rng so a run of games is
+    //still decided by the first seed
+    void restart() {
+        restart(random.nextLong());
+    }
+
+    void restart(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        shipX = shipStartX;
+        bullets.clear();
+        gameOver = false;
+        score = 0;
+        wave = 1;
+        ticks = 0;
+        alienColumns = startAlienColumns;
+        alienRows = startAlienRows;
+        alienVelocityX = 1;
+        createAliens();
+    }
+
+    static boolean detectCollision(int ax, int ay, int aWidth, int aHeight, int bx, int by, int bWidth, int bHeight) {
+        return  ax < bx + bWidth &&  //a's top left corner doesn't reach b's top right corner
+                ax + aWidth > bx &&  //a's top right corner passes b's top left corner
+                ay < by + bHeight && //a's top left corner doesn't reach b's bottom left corner
+                ay + aHeight > by;   //a's bottom left corner passes b's top left corner
+    }
+}
@@ -0,0 +1,76 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// live numbers for the stress mode: how many things there are, what a tick costs and how much it
+// allocates. tick() wraps world.move() and the shown values are means over the last WINDOW ticks,
+// so they move slowly enough to read on the hud
+class StressCounters {
+    static final int WINDOW = 60;
+
+    // the per thread allocation counter is a hotspot extension, without it allocations show as -1
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    int aliens;
+    int bullets;
+    long ticks;
+    long restarts;
+    double tickNanos;
+    double collisionTests;
+    double allocatedBytes;
+
+    private long windowNanos;
+    private long windowTests;
+    private long windowBytes;
+    private int windowTicks;
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // one measured tick with the given SpaceInvadersWorld.step input, a finished game is started over
+    // so the load never drops
+    void tick(SpaceInvadersWorld world, int input) {
+        if (world.gameOver) {
+            world.restart();
+            restarts++;
+        }
+        long bytesBefore = allocated();
+        long start = System.nanoTime();
+        world.step(input);
+        windowNanos += System.nanoTime() - start;
+        windowBytes += allocated() - bytesBefore;
+        windowTests += world.collisionTests;
+        ticks++;
+
+        aliens = world.aliens.count;
+        bullets = world.bullets.count;
+        if (++windowTicks == WINDOW) {
+            tickNanos = (double) windowNanos / WINDOW;
+            collisionTests = (double) windowTests / WINDOW;
+            allocatedBytes = THREADS == null ? -1 : (double) windowBytes / WINDOW;
+            windowNanos = windowTests = windowBytes = windowTicks = 0;
+        }
+    }
+
+    String[] lines() {
+        return new String[] {
+            String.format("aliens %,d  bullets %,d", aliens, bullets),
+            String.format("tick %,.1f us", tickNanos / 1000),
+            String.format("collision tests %,.0f/tick", collisionTests),
+            allocatedBytes < 0 ? "alloc n/a" : String.format("alloc %,.0f B/tick", allocatedBytes),
+        };
+    }
+}